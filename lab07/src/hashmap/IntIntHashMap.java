@@ -0,0 +1,199 @@
+package hashmap;
+
+import java.util.Arrays;
+
+/**
+ *  A map from int keys to int values, specialized so that nothing is ever boxed.
+ *
+ *  It works like OpenAddressingMap, with linear probing over parallel int[] arrays of keys
+ *  and values and backward-shift deletion, but an entry costs eight bytes of array instead
+ *  of an Integer key, an Integer value and a slot reference each. An empty slot holds the
+ *  key 0, so the mapping for the key 0 itself, if any, is kept in two fields of its own.
+ *
+ *  Does not implement Map61B, whose methods would box every key and value. It does not
+ *  resize down upon remove().
+ */
+public class IntIntHashMap {
+
+    /* Instance Variables */
+    private int[] keys;
+    private int[] values;
+    private final double loadFactor;
+    /* Number of mappings in the arrays, not counting the key 0. */
+    private int used;
+    private boolean hasZeroKey;
+    private int zeroValue;
+    private int shift;
+
+    /* Constants */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+
+    /** Constructors */
+    public IntIntHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntIntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * IntIntHashMap constructor that creates backing arrays of at least initialCapacity
+     * slots, rounded up to a power of two. The load factor must be less than 1.
+     *
+     * @param initialCapacity initial size of the backing arrays
+     * @param loadFactor maximum load factor
+     */
+    public IntIntHashMap(int initialCapacity, double loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be between 0 and 1");
+        }
+        this.loadFactor = loadFactor;
+        initializeSlots(OpenAddressingMap.tableSizeFor(initialCapacity));
+    }
+
+    private void initializeSlots(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        used = 0;
+    }
+
+    /** Returns the home slot of KEY, from the top bits of a multiplicative hash. */
+    private int homeSlot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    /** Returns the slot that holds the nonzero KEY, or the empty slot where it would go. */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int i = homeSlot(key);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Associates VALUE with KEY in this map, replacing any value KEY was mapped to.
+     */
+    public void put(int key, int value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int i = findSlot(key);
+        if (keys[i] == 0) {
+            keys[i] = key;
+            used += 1;
+        }
+        values[i] = value;
+        if (used > loadFactor * keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        int oldUsed = used;
+        initializeSlots(newCapacity);
+
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = homeSlot(oldKeys[j]);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+        used = oldUsed;
+    }
+
+    /**
+     * Returns the value KEY is mapped to, or DEFAULTVALUE if this map contains no mapping
+     * for KEY.
+     */
+    public int get(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int i = findSlot(key);
+        return keys[i] == 0 ? defaultValue : values[i];
+    }
+
+    /** Returns whether this map contains a mapping for KEY. */
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return keys[findSlot(key)] != 0;
+    }
+
+    /** Returns the number of key-value mappings in this map. */
+    public int size() {
+        return used + (hasZeroKey ? 1 : 0);
+    }
+
+    /** Removes every mapping from this map. */
+    public void clear() {
+        initializeSlots(DEFAULT_INITIAL_CAPACITY);
+        hasZeroKey = false;
+    }
+
+    /** Returns the keys in this map, in ascending order. */
+    public int[] keys() {
+        int[] result = new int[size()];
+        int n = 0;
+        if (hasZeroKey) {
+            result[n] = 0;
+            n++;
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                result[n] = key;
+                n++;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Removes the mapping for KEY from this map if present, and returns whether there was
+     * one. Entries further along the probe run are shifted back into the gap, as in
+     * OpenAddressingMap.remove.
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            boolean had = hasZeroKey;
+            hasZeroKey = false;
+            return had;
+        }
+        int gap = findSlot(key);
+        if (keys[gap] == 0) {
+            return false;
+        }
+        used -= 1;
+
+        int mask = keys.length - 1;
+        int j = (gap + 1) & mask;
+        while (keys[j] != 0) {
+            int home = homeSlot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+        return true;
+    }
+}
@@ -0,0 +1,257 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ *  A hash table-backed Map implementation that uses open addressing instead of buckets.
+ *
+ *  Keys and values live in two parallel arrays, and a key that collides is stored in the
+ *  next free slot after its home slot (linear probing). There are no Node objects and no
+ *  bucket collections, so a lookup is a short scan over one array instead of a chain of
+ *  pointers. remove() uses backward-shift deletion: the entries after the removed one are
+ *  moved back into the gap, so no tombstones are left behind to slow later lookups.
+ *
+ *  Assumes null keys will never be inserted, and does not resize down upon remove().
+ */
+public class OpenAddressingMap<K, V> implements Map61B<K, V> {
+
+    /* Instance Variables */
+    private Object[] keys;
+    private Object[] values;
+    private final double loadFactor;
+    private int size;
+    /* The home slot of a hash is its top log2(capacity) bits after mixing. */
+    private int shift;
+
+    /* Constants */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+
+    /** Constructors */
+    public OpenAddressingMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public OpenAddressingMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * OpenAddressingMap constructor that creates backing arrays of at least
+     * initialCapacity slots, rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= loadFactor,
+     * which must be less than 1 so that a probe always reaches an empty slot.
+     *
+     * @param initialCapacity initial size of the backing arrays
+     * @param loadFactor maximum load factor
+     */
+    public OpenAddressingMap(int initialCapacity, double loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be between 0 and 1");
+        }
+        this.loadFactor = loadFactor;
+        initializeSlots(tableSizeFor(initialCapacity));
+    }
+
+    /** Returns the smallest power of two that is at least CAPACITY, and at least 2. */
+    static int tableSizeFor(int capacity) {
+        int n = 2;
+        while (n < capacity) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    private void initializeSlots(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        size = 0;
+    }
+
+    /**
+     * Returns the home slot of KEY. Multiplying by a large odd constant spreads hash codes
+     * that differ only in their high or low bits across the whole table.
+     */
+    private int homeSlot(Object key) {
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    /** Returns the slot that holds KEY, or the empty slot where it would go. */
+    private int findSlot(Object key) {
+        int mask = keys.length - 1;
+        int i = homeSlot(key);
+        while (keys[i] != null && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map already contains the specified key, replaces the key's mapping
+     * with the value specified.
+     *
+     * @param key
+     * @param value
+     */
+    @Override
+    public void put(K key, V value) {
+        int i = findSlot(key);
+        if (keys[i] != null) {
+            values[i] = value;
+            return;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size += 1;
+        if (size > loadFactor * keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    private void resize(int newCapacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldSize = size;
+        initializeSlots(newCapacity);
+
+        /* Every key is distinct, so each one goes straight into the first empty slot. */
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = homeSlot(oldKeys[j]);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+        size = oldSize;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     *
+     * @param key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int i = findSlot(key);
+        return keys[i] == null ? null : (V) values[i];
+    }
+
+    /**
+     * Returns whether this map contains a mapping for the specified key.
+     *
+     * @param key
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return keys[findSlot(key)] != null;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every mapping from this map.
+     */
+    @Override
+    public void clear() {
+        initializeSlots(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<K> keySet() {
+        HashSet<K> set = new HashSet<>();
+        for (Object key : keys) {
+            if (key != null) {
+                set.add((K) key);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present,
+     * or null if there is no such mapping.
+     *
+     * @param key
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int gap = findSlot(key);
+        if (keys[gap] == null) {
+            return null;
+        }
+        V value = (V) values[gap];
+        size -= 1;
+
+        /* Walk the rest of the probe run. An entry may move back into the gap only if its
+         * home slot does not lie cyclically in (gap, j], or it would end up before its home
+         * and become unreachable. */
+        int mask = keys.length - 1;
+        int j = (gap + 1) & mask;
+        while (keys[j] != null) {
+            int home = homeSlot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        return value;
+    }
+
+    /**
+     * Returns an iterator over the keys in this map, in slot order.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<>() {
+            private int next = advance(0);
+
+            private int advance(int i) {
+                while (i < keys.length && keys[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                K key = (K) keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+}
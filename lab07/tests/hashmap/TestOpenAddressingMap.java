@@ -0,0 +1,91 @@
+package hashmap;
+
+import hashmap.TestMyHashMap.Bee;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Tests of OpenAddressingMap and IntIntHashMap against Java's HashMap. */
+public class TestOpenAddressingMap {
+
+    @Test
+    public void testBasics() {
+        OpenAddressingMap<String, Integer> map = new OpenAddressingMap<>();
+        for (int i = 0; i < 455; i++) {
+            map.put("hi" + i, i);
+            assertThat(map.get("hi" + i)).isEqualTo(i);
+        }
+        assertThat(map.size()).isEqualTo(455);
+        assertThat(map.keySet().size()).isEqualTo(455);
+        map.put("hi7", -7);
+        assertThat(map.get("hi7")).isEqualTo(-7);
+        assertThat(map.size()).isEqualTo(455);
+
+        // even with a null value, containsKey should return true
+        map.put("hashBrowns", null);
+        assertThat(map.containsKey("hashBrowns")).isTrue();
+        assertThat(map.get("hashBrowns")).isNull();
+
+        map.clear();
+        assertThat(map.size()).isEqualTo(0);
+        assertThat(map.containsKey("hi1")).isFalse();
+        assertThat(map.iterator().hasNext()).isFalse();
+    }
+
+    /** Keys whose hash codes all collide form one long probe run for remove to repair. */
+    @Test
+    public void testRemoveKeepsProbeRunsIntact() {
+        OpenAddressingMap<Bee, Integer> map = new OpenAddressingMap<>();
+        Map<Bee, Integer> ref = new HashMap<>();
+        for (int m = 1; m <= 40; m++) {
+            map.put(new Bee(m * 61), m);
+            ref.put(new Bee(m * 61), m);
+        }
+        for (int m = 1; m <= 40; m += 3) {
+            assertThat(map.remove(new Bee(m * 61))).isEqualTo(ref.remove(new Bee(m * 61)));
+        }
+        assertThat(map.remove(new Bee(1))).isNull();
+        assertThat(map.size()).isEqualTo(ref.size());
+        for (int m = 1; m <= 40; m++) {
+            assertThat(map.get(new Bee(m * 61))).isEqualTo(ref.get(new Bee(m * 61)));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        Random r = new Random(61);
+        OpenAddressingMap<Integer, Integer> map = new OpenAddressingMap<>();
+        IntIntHashMap ints = new IntIntHashMap();
+        Map<Integer, Integer> ref = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = r.nextInt(2000) - 1000;
+            if (r.nextInt(3) == 0) {
+                Integer expected = ref.remove(key);
+                assertThat(map.remove(key)).isEqualTo(expected);
+                assertThat(ints.remove(key)).isEqualTo(expected != null);
+            } else {
+                ref.put(key, i);
+                map.put(key, i);
+                ints.put(key, i);
+            }
+            assertThat(map.size()).isEqualTo(ref.size());
+            assertThat(ints.size()).isEqualTo(ref.size());
+        }
+        TreeSet<Integer> keys = new TreeSet<>();
+        for (int key : ints.keys()) {
+            keys.add(key);
+        }
+        assertThat(keys).isEqualTo(new TreeSet<>(ref.keySet()));
+        assertThat(map.keySet()).isEqualTo(ref.keySet());
+        for (int key = -1000; key < 1000; key++) {
+            assertThat(map.get(key)).isEqualTo(ref.get(key));
+            assertThat(ints.containsKey(key)).isEqualTo(ref.containsKey(key));
+            assertThat(ints.get(key, -1)).isEqualTo(ref.getOrDefault(key, -1));
+        }
+    }
+}
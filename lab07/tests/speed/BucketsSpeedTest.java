@@ -4,6 +4,7 @@ import edu.princeton.cs.algs4.Stopwatch;
 import java.util.*;
 
 import hashmap.Map61B;
+import hashmap.OpenAddressingMap;
 
 import static hashmap.MyHashMapFactory.createBucketedMap;
 
@@ -45,6 +46,13 @@ public class BucketsSpeedTest {
             for (Class<? extends Collection> bucketType : bucketTypes) {
                 timeRandomMap61B(createBucketedMap(bucketType), N, L);
             }
+            // no buckets at all, for comparison
+            timeRandomMap61B(new OpenAddressingMap<>() {
+                @Override
+                public String toString() {
+                    return "OpenAddressingMap";
+                }
+            }, N, L);
 
             System.out.print("\nWould you like to try more timed-tests? (y/n)");
             repeat = input.nextLine();
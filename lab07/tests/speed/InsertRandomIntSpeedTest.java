@@ -0,0 +1,98 @@
+package speed;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import hashmap.IntIntHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+import hashmap.OpenAddressingMap;
+
+import static speed.InsertRandomSpeedTest.waitForPositiveInt;
+
+/** Performs a timing test of int-keyed maps, boxed and unboxed. */
+public class InsertRandomIntSpeedTest {
+    /**
+     * Requests user input and times inserting and then looking up N random int keys in
+     * each map implementation. ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("""
+
+                 This program inserts random ints into different types of maps
+                 as <Integer, Integer> pairs, then looks each of them up again.
+                """);
+
+        String repeat;
+        do {
+            System.out.print("\nEnter # ints to insert into each map: ");
+            int N = waitForPositiveInt(input);
+            int[] keys = randomKeys(N);
+
+            timeMap61B(new MyHashMap<>(), "MyHashMap", keys);
+            timeMap61B(new OpenAddressingMap<>(), "OpenAddressingMap", keys);
+            timeIntIntHashMap(keys);
+            timeHashMap(keys);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Returns N random ints, with repeats. */
+    private static int[] randomKeys(int N) {
+        Random r = new Random(61);
+        int[] keys = new int[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = r.nextInt();
+        }
+        return keys;
+    }
+
+    /** Prints the time needed to put every one of KEYS into MAP and then get it back. */
+    private static void timeMap61B(Map61B<Integer, Integer> map, String name, int[] keys) {
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.get(key);
+        }
+        System.out.printf(name + ": %.2f sec (checksum %d)\n", sw.elapsedTime(), sum);
+    }
+
+    /** Prints the time needed to put every one of KEYS into an IntIntHashMap and back. */
+    private static void timeIntIntHashMap(int[] keys) {
+        Stopwatch sw = new Stopwatch();
+        IntIntHashMap map = new IntIntHashMap();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.get(key, 0);
+        }
+        System.out.printf("IntIntHashMap: %.2f sec (checksum %d)\n", sw.elapsedTime(), sum);
+    }
+
+    /** Prints the time needed to put every one of KEYS into a HashMap and back. */
+    private static void timeHashMap(int[] keys) {
+        Stopwatch sw = new Stopwatch();
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.get(key);
+        }
+        System.out.printf("Java's Built-in HashMap: %.2f sec (checksum %d)\n",
+                sw.elapsedTime(), sum);
+    }
+}
@@ -7,6 +7,7 @@ import edu.princeton.cs.algs4.Stopwatch;
 import hashmap.Map61B;
 import hashmap.ULLMap;
 import hashmap.MyHashMap;
+import hashmap.OpenAddressingMap;
 
 /** Performs a timing test on three different set implementations.
  *  @author Josh Hug
@@ -38,6 +39,10 @@ public class InsertRandomSpeedTest {
             timeRandomMap61B(new MyHashMap<>(),
                     waitForPositiveInt(input), L);
 
+            System.out.print("\nEnter # strings to insert into OpenAddressingMap: ");
+            timeRandomMap61B(new OpenAddressingMap<>(),
+                    waitForPositiveInt(input), L);
+
             System.out.print("\nEnter # strings to insert into Java's HashMap: ");
             timeRandomHashMap(new HashMap<>(),
                     waitForPositiveInt(input), L);
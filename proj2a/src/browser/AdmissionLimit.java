@@ -0,0 +1,81 @@
+package browser;
+
+import spark.HaltException;
+import spark.Response;
+import spark.Route;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static spark.Spark.halt;
+
+/**
+ * Caps the number of requests that may be handled at once across every route wrapped by the
+ * same AdmissionLimit. A request beyond the cap waits up to a fixed time for a slot and is
+ * then turned away with 503 Service Unavailable. Without such a cap a server running on
+ * virtual threads would accept every request and let them all compete for the CPU, and
+ * latency would grow for everyone.
+ */
+public class AdmissionLimit {
+    private final Semaphore slots;
+    private final int maxInFlight;
+    private final long waitMillis;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a limit that admits at most MAXINFLIGHT requests at once and lets a request
+     * wait at most WAITMILLIS milliseconds for a slot.
+     */
+    public AdmissionLimit(int maxInFlight, long waitMillis) {
+        if (maxInFlight <= 0 || waitMillis < 0) {
+            throw new IllegalArgumentException("Limit must be positive and wait non-negative");
+        }
+        this.slots = new Semaphore(maxInFlight, true);
+        this.maxInFlight = maxInFlight;
+        this.waitMillis = waitMillis;
+    }
+
+    /** Returns a Route that runs ROUTE only once this limit has admitted the request. */
+    public Route wrap(Route route) {
+        return (request, response) -> {
+            if (!acquire()) {
+                rejected.incrementAndGet();
+                throw busy(response);
+            }
+            try {
+                return route.handle(request, response);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    /**
+     * Returns the 503 Service Unavailable halt, with a Retry-After header set on RESPONSE,
+     * with which an overloaded server turns a request away.
+     */
+    static HaltException busy(Response response) {
+        response.header("Retry-After", "1");
+        return halt(503, "Server is busy, try again shortly");
+    }
+
+    private boolean acquire() {
+        try {
+            return slots.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Returns the number of requests being handled right now. */
+    public int inFlight() {
+        return maxInFlight - slots.availablePermits();
+    }
+
+    /** Returns the number of requests turned away so far. */
+    public long rejected() {
+        return rejected.get();
+    }
+}
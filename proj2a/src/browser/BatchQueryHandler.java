@@ -0,0 +1,106 @@
+package browser;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers many queries, for any of the registered routes, in a single POST request. The body
+ * is a JSON array of queries such as
+ *
+ *   [{"route": "historytext", "words": ["cat", "dog"], "startYear": 1900, "endYear": 2000},
+ *    {"route": "history", "words": ["fish"]}]
+ *
+ * where startYear, endYear and k default to the same values as for a GET request. The
+ * response is a JSON array with one element per query, in order: the same JSON that a GET to
+ * that route would have returned, or {"error": "..."} if the query could not be answered.
+ * Queries go through each route's respond path, so they share its response cache.
+ *
+ * Each route named in a batch is looked up once and pinned (see NgordnetQueryHandler.pinned),
+ * so all of that route's queries are answered from the same version of its data, however
+ * many deltas are merged meanwhile. They share that version's
+ * weight column too, so the total counts are divided through once, not once per query.
+ */
+public class BatchQueryHandler implements Route {
+    private static final Gson gson = new Gson();
+
+    private final Map<String, NgordnetQueryHandler> handlers;
+
+    /** Creates a BatchQueryHandler that dispatches to HANDLERS, keyed by route name. */
+    public BatchQueryHandler(Map<String, NgordnetQueryHandler> handlers) {
+        this.handlers = handlers;
+    }
+
+    /** One element of the request body. */
+    private static class BatchEntry {
+        String route;
+        List<String> words;
+        Integer startYear;
+        Integer endYear;
+        Integer k;
+
+        NgordnetQuery toQuery() {
+            return new NgordnetQuery(words == null ? List.of() : words,
+                    startYear == null ? 1900 : startYear,
+                    endYear == null ? 2020 : endYear,
+                    k == null ? 0 : k);
+        }
+    }
+
+    @Override
+    public String handle(Request request, Response response) throws Exception {
+        response.type("application/json");
+        BatchEntry[] entries;
+        try {
+            entries = gson.fromJson(request.body(), BatchEntry[].class);
+        } catch (JsonParseException e) {
+            response.status(400);
+            return error("Request body must be a JSON array of queries: " + e.getMessage());
+        }
+        if (entries == null) {
+            entries = new BatchEntry[0];
+        }
+
+        Map<String, NgordnetQueryHandler> pinned = new HashMap<>();
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < entries.length; i += 1) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(respond(entries[i], pinned));
+        }
+        return body.append(']').toString();
+    }
+
+    /**
+     * Returns the JSON result for one ENTRY of a batch, answered by the handler for its route
+     * in PINNED, which is pinned and added there the first time the route is seen.
+     */
+    private String respond(BatchEntry entry, Map<String, NgordnetQueryHandler> pinned) {
+        if (entry == null) {
+            return error("Query must be a JSON object");
+        }
+        NgordnetQueryHandler handler = null;
+        if (entry.route != null && handlers.containsKey(entry.route)) {
+            handler = pinned.computeIfAbsent(entry.route, route -> handlers.get(route).pinned());
+        }
+        if (handler == null) {
+            return error("Unknown route: " + entry.route);
+        }
+        try {
+            return handler.respond(entry.toQuery());
+        } catch (RuntimeException e) {
+            return error(entry.route + " failed: " + e.getMessage());
+        }
+    }
+
+    private static String error(String message) {
+        return gson.toJson(Map.of("error", String.valueOf(message)));
+    }
+}
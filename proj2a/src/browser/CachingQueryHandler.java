@@ -0,0 +1,77 @@
+package browser;
+
+import spark.Response;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * Wraps another NgordnetQueryHandler and serves repeated queries from a QueryCache. A hit
+ * skips both the wrapped handler (including any chart rendering it does) and the JSON
+ * serialization of its result.
+ *
+ * Entries are tagged with the version of the data they were computed from, as reported by a
+ * LongSupplier such as NGramMap::epoch, so nothing cached before the data changes is served
+ * after it.
+ */
+public class CachingQueryHandler extends NgordnetQueryHandler {
+    private final NgordnetQueryHandler delegate;
+    private final QueryCache cache;
+    private final LongSupplier version;
+
+    /** Creates a handler that caches the responses of DELEGATE, whose data never changes. */
+    public CachingQueryHandler(NgordnetQueryHandler delegate, QueryCache cache) {
+        this(delegate, cache, () -> 0);
+    }
+
+    /**
+     * Creates a handler that caches the responses of DELEGATE in CACHE under the data version
+     * VERSION returns, which must never go down.
+     */
+    public CachingQueryHandler(NgordnetQueryHandler delegate, QueryCache cache,
+                               LongSupplier version) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.version = version;
+    }
+
+    /** Returns the cache in front of the wrapped handler. */
+    public QueryCache cache() {
+        return cache;
+    }
+
+    @Override
+    public String handle(NgordnetQuery q) {
+        return delegate.handle(q);
+    }
+
+    /** Streamed responses are written as they are computed, so they bypass the cache. */
+    @Override
+    protected boolean stream(NgordnetQuery nq, String format, Response response)
+            throws IOException {
+        return delegate.stream(nq, format, response);
+    }
+
+    /**
+     * Pins the wrapped handler and the data version together. The version is read first, so
+     * the pinned data is at least that new and its responses may be cached under it.
+     */
+    @Override
+    protected NgordnetQueryHandler pinned() {
+        long current = version.getAsLong();
+        return new CachingQueryHandler(delegate.pinned(), cache, () -> current);
+    }
+
+    @Override
+    protected String respond(NgordnetQuery nq) {
+        NgordnetQuery key = QueryCache.normalize(nq);
+        /* Read before the delegate reads any data, so the body is at least this new. */
+        long current = version.getAsLong();
+        String body = cache.get(key, current);
+        if (body == null) {
+            body = delegate.respond(key);
+            cache.put(key, current, body);
+        }
+        return body;
+    }
+}
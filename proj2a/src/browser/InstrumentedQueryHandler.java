@@ -0,0 +1,64 @@
+package browser;
+
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+
+/**
+ * Wraps another NgordnetQueryHandler and records its requests in a RouteMetrics: total
+ * latency, in-flight count and errors here, and the parse, compute, plot and serialize
+ * phases wherever the wrapped code times them.
+ */
+public class InstrumentedQueryHandler extends NgordnetQueryHandler {
+    private final NgordnetQueryHandler delegate;
+    private final RouteMetrics metrics;
+
+    public InstrumentedQueryHandler(NgordnetQueryHandler delegate, RouteMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String handle(Request request, Response response) throws Exception {
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            String body = delegate.handle(request, response);
+            failed = false;
+            return body;
+        } finally {
+            metrics.end(start, failed);
+        }
+    }
+
+    @Override
+    public String handle(NgordnetQuery q) {
+        return delegate.handle(q);
+    }
+
+    @Override
+    protected NgordnetQueryHandler pinned() {
+        return new InstrumentedQueryHandler(delegate.pinned(), metrics);
+    }
+
+    /** Used by batch requests, which are timed per query rather than per HTTP request. */
+    @Override
+    protected String respond(NgordnetQuery nq) {
+        long start = metrics.begin();
+        boolean failed = true;
+        try {
+            String body = delegate.respond(nq);
+            failed = false;
+            return body;
+        } finally {
+            metrics.end(start, failed);
+        }
+    }
+
+    @Override
+    protected boolean stream(NgordnetQuery nq, String format, Response response)
+            throws IOException {
+        return delegate.stream(nq, format, response);
+    }
+}
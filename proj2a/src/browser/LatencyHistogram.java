@@ -0,0 +1,85 @@
+package browser;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, bucketed the way HdrHistogram does it:
+ * every power of two is split into 16 equal sub-buckets, so any recorded value is known to
+ * within about 6% while the whole range of a long fits in under a thousand counters.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Records one duration of NANOS nanoseconds. Negative durations count as zero. */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /** Returns the number of recorded durations. */
+    public long count() {
+        return count.get();
+    }
+
+    /** Returns the sum of all recorded durations, in nanoseconds. */
+    public long sum() {
+        return sum.get();
+    }
+
+    /** Returns the longest recorded duration, in nanoseconds. */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns a duration, in nanoseconds, that at least the fraction Q of all recorded durations
+     * do not exceed, accurate to one bucket. Returns 0 if nothing has been recorded.
+     */
+    public long percentile(double q) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /** Returns the bucket holding VALUE, which must not be negative. */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Returns the largest value that falls into bucket I. */
+    private static long highestValue(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int shift = i / SUB_BUCKETS - 1;
+        long sub = i % SUB_BUCKETS;
+        long next = (SUB_BUCKETS + sub + 1) << shift;
+        return (next < 0) ? Long.MAX_VALUE : next - 1;
+    }
+}
@@ -0,0 +1,72 @@
+package browser;
+
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.Collection;
+import java.util.Locale;
+
+import static spark.Spark.halt;
+
+/**
+ * Serves the metrics of every instrumented route in the Prometheus text format. Only
+ * requests from the local machine are answered.
+ */
+public class MetricsHandler implements Route {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Collection<RouteMetrics> routes;
+
+    public MetricsHandler(Collection<RouteMetrics> routes) {
+        this.routes = routes;
+    }
+
+    @Override
+    public String handle(Request request, Response response) {
+        if (!isLocal(request.ip())) {
+            throw halt(403, "Metrics are only available from localhost");
+        }
+        response.type("text/plain; version=0.0.4");
+
+        StringBuilder out = new StringBuilder();
+        out.append("# TYPE ngordnet_requests_in_flight gauge\n");
+        for (RouteMetrics metrics : routes) {
+            out.append("ngordnet_requests_in_flight{route=\"").append(metrics.route())
+                    .append("\"} ").append(metrics.inFlight()).append('\n');
+        }
+        out.append("# TYPE ngordnet_request_errors_total counter\n");
+        for (RouteMetrics metrics : routes) {
+            out.append("ngordnet_request_errors_total{route=\"").append(metrics.route())
+                    .append("\"} ").append(metrics.errors()).append('\n');
+        }
+        out.append("# TYPE ngordnet_phase_seconds summary\n");
+        for (RouteMetrics metrics : routes) {
+            for (RouteMetrics.Phase phase : RouteMetrics.Phase.values()) {
+                LatencyHistogram h = metrics.histogram(phase);
+                String labels = "route=\"" + metrics.route() + "\",phase=\""
+                        + phase.name().toLowerCase(Locale.ROOT) + "\"";
+                for (double q : QUANTILES) {
+                    out.append("ngordnet_phase_seconds{").append(labels).append(",quantile=\"")
+                            .append(q).append("\"} ").append(seconds(h.percentile(q)))
+                            .append('\n');
+                }
+                out.append("ngordnet_phase_seconds_max{").append(labels).append("} ")
+                        .append(seconds(h.max())).append('\n');
+                out.append("ngordnet_phase_seconds_sum{").append(labels).append("} ")
+                        .append(seconds(h.sum())).append('\n');
+                out.append("ngordnet_phase_seconds_count{").append(labels).append("} ")
+                        .append(h.count()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isLocal(String ip) {
+        return "127.0.0.1".equals(ip) || "0:0:0:0:0:0:0:1".equals(ip) || "::1".equals(ip);
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
@@ -6,8 +6,10 @@ import spark.Request;
 import spark.Response;
 import spark.Route;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 public abstract class NgordnetQueryHandler implements Route {
     public abstract String handle(browser.NgordnetQuery q);
@@ -21,8 +23,11 @@ public abstract class NgordnetQueryHandler implements Route {
         return Arrays.asList(requestedWords);
     }
 
-    private static browser.NgordnetQuery readQueryMap(QueryParamsMap qm) {
-        List<String> words = commaSeparatedStringToList(qm.get("words").value());
+    protected static browser.NgordnetQuery readQueryMap(QueryParamsMap qm) {
+        String wordsParam = qm.get("words").value();
+        /* Routes such as topwords do not need any words. */
+        List<String> words = (wordsParam == null) ? List.of()
+                : commaSeparatedStringToList(wordsParam);
 
         int startYear;
         int endYear;
@@ -49,11 +54,50 @@ public abstract class NgordnetQueryHandler implements Route {
         return new browser.NgordnetQuery(words, startYear, endYear, k);
     }
 
+    /**
+     * Answers the query in REQUEST. A handler that finds a pool it depends on overloaded
+     * throws a RejectedExecutionException, which is answered with 503 and Retry-After, just
+     * like a request turned away by an AdmissionLimit.
+     */
     @Override
     public String handle(Request request, Response response) throws Exception {
         QueryParamsMap qm = request.queryMap();
-        NgordnetQuery nq = readQueryMap(qm);
-        String queryResult = handle(nq);
-        return gson.toJson(queryResult);
+        NgordnetQuery nq = RouteMetrics.time(RouteMetrics.Phase.PARSE, () -> readQueryMap(qm));
+        String format = qm.get("format").value();
+        try {
+            if (format != null && stream(nq, format, response)) {
+                return "";
+            }
+            return respond(nq);
+        } catch (RejectedExecutionException e) {
+            throw AdmissionLimit.busy(response);
+        }
+    }
+
+    /**
+     * Writes the response for the query NQ in the given FORMAT (a "format" query parameter
+     * such as "json" or "csv") straight to the servlet output stream of RESPONSE, and returns
+     * true. Returns false without writing anything if this handler cannot stream FORMAT, in
+     * which case the usual respond path is used. Handlers that can stream override this.
+     */
+    protected boolean stream(NgordnetQuery nq, String format, Response response)
+            throws IOException {
+        return false;
+    }
+
+    /**
+     * Returns a handler that answers like this one, but from the version of its data that is
+     * current now, however much the data changes afterwards. A batch request answers all of
+     * its queries for one route from one such handler. Handlers whose data never changes can
+     * return themselves, which is the default.
+     */
+    protected NgordnetQueryHandler pinned() {
+        return this;
+    }
+
+    /** Returns the JSON response body for the query NQ. */
+    protected String respond(NgordnetQuery nq) {
+        String queryResult = RouteMetrics.time(RouteMetrics.Phase.COMPUTE, () -> handle(nq));
+        return RouteMetrics.time(RouteMetrics.Phase.SERIALIZE, () -> gson.toJson(queryResult));
     }
 }
@@ -1,16 +1,114 @@
 package browser;
 
+import org.eclipse.jetty.util.thread.ThreadPool;
+import spark.Route;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
 import static spark.Spark.*;
 
 /**
  * Created by hug.
  */
 public class NgordnetServer {
+    /** Every registered handler (after any caching wrapper), keyed by its route. */
+    private final Map<String, NgordnetQueryHandler> handlers = new ConcurrentHashMap<>();
+    /** Metrics of every instrumented route, sorted by route. */
+    private final Map<String, RouteMetrics> metrics = new ConcurrentSkipListMap<>();
+    private boolean metricsEnabled;
+    private int cacheEntries;
+    private long cacheBytes;
+    private LongSupplier cacheVersion;
+    private AdmissionLimit admission;
+    private boolean started;
+
+    /**
+     * Runs every request on its own virtual thread instead of on Spark's bounded pool of
+     * platform threads, and admits at most MAXINFLIGHT requests at once. A request beyond
+     * that waits up to WAITMILLIS milliseconds for a slot and is then answered with 503.
+     * Must be called before startUp, since the server's thread pool is fixed once it starts.
+     */
+    public void enableVirtualThreads(int maxInFlight, long waitMillis) {
+        if (started) {
+            throw new IllegalStateException("Virtual threads must be enabled before startUp");
+        }
+        ThreadPool pool = new VirtualThreadPool();
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                new EmbeddedJettyFactory().withThreadPool(pool));
+        admission = new AdmissionLimit(maxInFlight, waitMillis);
+    }
+
+    /** Returns the admission limit set by enableVirtualThreads, or null if there is none. */
+    public AdmissionLimit admission() {
+        return admission;
+    }
+
+    /**
+     * Puts a separate LRU cache of at most MAXENTRIES responses and about MAXBYTES bytes in
+     * front of every handler registered after this call. The data behind the handlers must
+     * never change; otherwise use the overload that takes a data version.
+     */
+    public void enableCache(int maxEntries, long maxBytes) {
+        enableCache(maxEntries, maxBytes, () -> 0);
+    }
+
+    /**
+     * Like enableCache(MAXENTRIES, MAXBYTES), except that every cache is emptied once VERSION
+     * (for example NGramMap::epoch) reports that the data behind the handlers has changed.
+     */
+    public void enableCache(int maxEntries, long maxBytes, LongSupplier version) {
+        this.cacheEntries = maxEntries;
+        this.cacheBytes = maxBytes;
+        this.cacheVersion = version;
+    }
+
+    /**
+     * Records latency histograms and in-flight counts for every handler registered after this
+     * call, and serves them in the Prometheus text format at /metrics to local clients.
+     */
+    public void enableMetrics() {
+        if (!metricsEnabled) {
+            metricsEnabled = true;
+            get("metrics", new MetricsHandler(metrics.values()));
+        }
+    }
+
     public void register(String URL, NgordnetQueryHandler nqh) {
-        get(URL, nqh);
+        if (cacheEntries > 0) {
+            nqh = new CachingQueryHandler(nqh, new QueryCache(cacheEntries, cacheBytes),
+                    cacheVersion);
+        }
+        if (metricsEnabled) {
+            RouteMetrics routeMetrics = new RouteMetrics(URL);
+            metrics.put(URL, routeMetrics);
+            nqh = new InstrumentedQueryHandler(nqh, routeMetrics);
+        }
+        handlers.put(URL, nqh);
+        get(URL, admit(nqh));
+    }
+
+    /**
+     * Adds a POST endpoint at URL that answers a JSON array of queries against every route
+     * registered with this server, in one request. See BatchQueryHandler for the format.
+     */
+    public void registerBatch(String URL) {
+        post(URL, admit(new BatchQueryHandler(handlers)));
+        /* Browsers send a preflight OPTIONS request before a cross-origin JSON POST. */
+        options(URL, (request, response) -> "");
+    }
+
+    /** Returns ROUTE behind the admission limit, if there is one. */
+    private Route admit(Route route) {
+        return admission == null ? route : admission.wrap(route);
     }
 
     public void startUp() {
+        started = true;
         staticFiles.externalLocation("static");
 
         /* Allow for all origin requests (since this is not an authenticated server, we do not
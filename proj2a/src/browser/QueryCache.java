@@ -0,0 +1,164 @@
+package browser;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache from queries to response bodies, bounded both by number of
+ * entries and by an estimate of the bytes they hold. Keeps hit, miss and eviction counts.
+ *
+ * All methods are synchronized, so one cache can be shared by every request thread. The
+ * value for a missing key is computed outside the lock, so two threads that miss on the
+ * same query at once may both compute it; the second result simply replaces the first.
+ *
+ * Responses can also be tagged with the version of the data they were computed from. The
+ * first time a newer version is seen, every entry is dropped, and a response computed from
+ * an older version than the newest seen is not cached.
+ */
+public class QueryCache {
+
+    /** Rough per-entry overhead of the map node, key record and strings, in bytes. */
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<NgordnetQuery, String> entries;
+    private long bytes;
+    /** The newest data version passed to get or put. */
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache that holds at most MAXENTRIES responses and at most about MAXBYTES bytes
+     * of keys and responses.
+     */
+    public QueryCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the key under which NQ is cached. Two queries that differ only in the surrounding
+     * whitespace of their words, or in the kind of List holding them, share a key.
+     */
+    public static NgordnetQuery normalize(NgordnetQuery nq) {
+        String[] words = new String[nq.words().size()];
+        for (int i = 0; i < words.length; i += 1) {
+            words[i] = nq.words().get(i).trim();
+        }
+        return new NgordnetQuery(List.of(words), nq.startYear(), nq.endYear(), nq.k());
+    }
+
+    /** Returns the cached response for the normalized query KEY, or null on a miss. */
+    public synchronized String get(NgordnetQuery key) {
+        String value = entries.get(key);
+        if (value == null) {
+            misses += 1;
+        } else {
+            hits += 1;
+        }
+        return value;
+    }
+
+    /**
+     * Caches VALUE as the response for the normalized query KEY, evicting least recently used
+     * entries until both bounds hold again. A value bigger than the whole byte budget is not
+     * cached at all.
+     */
+    public synchronized void put(NgordnetQuery key, String value) {
+        long size = sizeOf(key, value);
+        if (size > maxBytes) {
+            return;
+        }
+        String old = entries.put(key, value);
+        if (old != null) {
+            bytes -= sizeOf(key, old);
+        }
+        bytes += size;
+
+        Iterator<Map.Entry<NgordnetQuery, String>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            Map.Entry<NgordnetQuery, String> entry = eldest.next();
+            bytes -= sizeOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions += 1;
+        }
+    }
+
+    /**
+     * Returns the cached response for the normalized query KEY at data version VERSION, or
+     * null on a miss. Everything cached is dropped first if VERSION is newer than any seen.
+     */
+    public synchronized String get(NgordnetQuery key, long version) {
+        advance(version);
+        return get(key);
+    }
+
+    /**
+     * Caches VALUE, computed from data version VERSION, as the response for the normalized
+     * query KEY. Does nothing if a newer version has been seen, since VALUE may be stale.
+     */
+    public synchronized void put(NgordnetQuery key, long version, String value) {
+        advance(version);
+        if (version == this.version) {
+            put(key, value);
+        }
+    }
+
+    /** Drops every entry if VERSION is newer than the newest version seen so far. */
+    private void advance(long version) {
+        if (version > this.version) {
+            clear();
+            this.version = version;
+        }
+    }
+
+    /** Removes every entry. The counters are kept. */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryCache{entries=" + entries.size() + ", bytes=" + bytes + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    /** Returns an estimate of the bytes held by an entry from KEY to VALUE. */
+    private static long sizeOf(NgordnetQuery key, String value) {
+        long size = ENTRY_OVERHEAD + 2L * value.length();
+        for (String word : key.words()) {
+            size += 2L * word.length();
+        }
+        return size;
+    }
+}
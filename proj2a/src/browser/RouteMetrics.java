@@ -0,0 +1,89 @@
+package browser;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Latency histograms, an in-flight gauge and an error count for one route.
+ *
+ * The route's request thread is bound to its RouteMetrics for the duration of a request, so
+ * code anywhere below a handler can time a phase with RouteMetrics.time without being handed
+ * the metrics object. Outside an instrumented request, time just runs the phase.
+ */
+public class RouteMetrics {
+
+    /** The stages of answering a query. COMPUTE includes any PLOT time spent inside it. */
+    public enum Phase {
+        TOTAL, PARSE, COMPUTE, PLOT, SERIALIZE
+    }
+
+    private static final ThreadLocal<RouteMetrics> CURRENT = new ThreadLocal<>();
+
+    private final String route;
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong errors = new AtomicLong();
+
+    public RouteMetrics(String route) {
+        this.route = route;
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Runs PHASEBODY and, if the current thread is serving an instrumented request, records
+     * how long it took as PHASE of that request's route.
+     */
+    public static <T> T time(Phase phase, Supplier<T> phaseBody) {
+        RouteMetrics metrics = CURRENT.get();
+        if (metrics == null) {
+            return phaseBody.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return phaseBody.get();
+        } finally {
+            metrics.histogram(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Binds the current thread to these metrics and counts a request as in flight. Must be
+     * paired with a call to end.
+     */
+    long begin() {
+        inFlight.incrementAndGet();
+        CURRENT.set(this);
+        return System.nanoTime();
+    }
+
+    /** Ends the request begun at START, counting it as an error if FAILED. */
+    void end(long start, boolean failed) {
+        histogram(Phase.TOTAL).record(System.nanoTime() - start);
+        if (failed) {
+            errors.incrementAndGet();
+        }
+        CURRENT.remove();
+        inFlight.decrementAndGet();
+    }
+
+    public String route() {
+        return route;
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return phases.get(phase);
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+}
@@ -0,0 +1,64 @@
+package browser;
+
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Jetty ThreadPool that runs every task on a new virtual thread instead of on a fixed
+ * number of pooled platform threads. A request that blocks, for example while it waits for a
+ * chart to render, then parks its virtual thread and frees the carrier for other requests,
+ * so throughput is no longer capped by the size of the pool.
+ *
+ * Jetty's acceptor and selector loops run here too. Blocking accepts park like any other
+ * virtual thread, and the JDK adds a carrier while a selector is blocked in select.
+ * Since the pool itself never runs out of threads, limit concurrency with an AdmissionLimit.
+ */
+public class VirtualThreadPool implements ThreadPool {
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ngordnet-", 0).factory());
+    private final AtomicInteger running = new AtomicInteger();
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(() -> {
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    /** Waits until every task has finished after the pool has been shut down. */
+    @Override
+    public void join() throws InterruptedException {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /** Stops accepting tasks. Tasks that are already running finish normally. */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Returns the number of tasks running right now, one virtual thread each. */
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    /** Virtual threads are never kept around idle. */
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
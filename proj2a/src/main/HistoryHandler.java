@@ -2,19 +2,33 @@ package main;
 
 import browser.NgordnetQuery;
 import browser.NgordnetQueryHandler;
+import browser.RouteMetrics;
 import ngrams.NGramMap;
 import ngrams.TimeSeries;
 import org.knowm.xchart.XYChart;
+import plotting.ChartRenderer;
 import plotting.Plotter;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class HistoryHandler extends NgordnetQueryHandler {
-    private NGramMap ngm;
+    private final NGramMap ngm;
+    private final ChartRenderer renderer;
 
     public HistoryHandler(NGramMap map) {
+        this(map, ChartRenderer.defaultRenderer());
+    }
+
+    /** Creates a HistoryHandler that renders its charts on RENDERER. */
+    public HistoryHandler(NGramMap map, ChartRenderer renderer) {
         this.ngm = map;
+        this.renderer = renderer;
+    }
+
+    @Override
+    protected NgordnetQueryHandler pinned() {
+        return new HistoryHandler(ngm.pinned(), renderer);
     }
 
     @Override
@@ -32,6 +46,6 @@ public class HistoryHandler extends NgordnetQueryHandler {
         }
 
         XYChart chart = Plotter.generateTimeSeriesChart(labels, ts);
-        return Plotter.encodeChartAsString(chart);
+        return RouteMetrics.time(RouteMetrics.Phase.PLOT, () -> renderer.render(chart));
     }
 }
@@ -2,29 +2,143 @@ package main;
 
 import browser.NgordnetQuery;
 import browser.NgordnetQueryHandler;
+import ngrams.HistoryView;
 import ngrams.NGramMap;
-import ngrams.TimeSeries;
+import spark.Response;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class HistoryTextHandler extends NgordnetQueryHandler {
+    /** Size of the only buffer a streamed response uses, however many words are asked for. */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     private NGramMap ngm;
 
     public HistoryTextHandler(NGramMap map) {
         this.ngm = map;
     }
 
+    @Override
+    protected NgordnetQueryHandler pinned() {
+        return new HistoryTextHandler(ngm.pinned());
+    }
+
     @Override
     public String handle(NgordnetQuery q) {
         List<String> words = q.words();
-        int startYear = q.startYear();
-        int endYear = q.endYear();
+        List<HistoryView> histories = ngm.weightViews(words, q.startYear(), q.endYear());
 
         StringBuilder response = new StringBuilder();
-        for (String word : words) {
-            TimeSeries ts = ngm.weightHistory(word, startYear, endYear);
-            response.append(word).append(": ").append(ts.toString()).append("\n");
+        for (int i = 0; i < words.size(); i += 1) {
+            response.append(words.get(i)).append(": ").append(histories.get(i)).append("\n");
         }
         return response.toString();
     }
+
+    /**
+     * Streams the weight histories as they are read from the NGramMap, either as JSON of the
+     * form [{"word": "cat", "history": [[1900, 1.5E-5], ...]}, ...] or as CSV rows of
+     * word,year,weight under a header row. Nothing is built up per word or per year, so the
+     * memory a request needs does not grow with its size. Weights that are not finite are
+     * written as null in JSON and as an empty field in CSV.
+     *
+     * Every word is looked up, and its years checked against the total counts, before the
+     * first byte is written. A query that cannot be answered therefore fails just as it does
+     * without a format, rather than after a 200 and part of the body have been sent.
+     */
+    @Override
+    protected boolean stream(NgordnetQuery q, String format, Response response)
+            throws IOException {
+        boolean json = format.equalsIgnoreCase("json");
+        if (!json && !format.equalsIgnoreCase("csv")) {
+            return false;
+        }
+        List<HistoryView> histories = ngm.weightViews(q.words(), q.startYear(), q.endYear());
+        response.type(json ? "application/json" : "text/csv");
+        Writer out = new BufferedWriter(new OutputStreamWriter(
+                response.raw().getOutputStream(), StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+        if (json) {
+            writeJson(q.words(), histories, out);
+        } else {
+            writeCsv(q.words(), histories, out);
+        }
+        out.flush();
+        return true;
+    }
+
+    private static void writeJson(List<String> words, List<HistoryView> histories, Writer out)
+            throws IOException {
+        out.write('[');
+        for (int w = 0; w < words.size(); w += 1) {
+            if (w > 0) {
+                out.write(',');
+            }
+            out.write("{\"word\":");
+            writeJsonString(words.get(w), out);
+            out.write(",\"history\":[");
+            HistoryView history = histories.get(w);
+            for (int i = 0; i < history.size(); i += 1) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write('[');
+                out.write(Integer.toString(history.year(i)));
+                out.write(',');
+                /* JSON has no NaN or Infinity. */
+                double weight = history.value(i);
+                out.write(Double.isFinite(weight) ? Double.toString(weight) : "null");
+                out.write(']');
+            }
+            out.write("]}");
+        }
+        out.write(']');
+    }
+
+    private static void writeCsv(List<String> words, List<HistoryView> histories, Writer out)
+            throws IOException {
+        out.write("word,year,weight\n");
+        for (int w = 0; w < words.size(); w += 1) {
+            String field = csvField(words.get(w));
+            HistoryView history = histories.get(w);
+            for (int i = 0; i < history.size(); i += 1) {
+                out.write(field);
+                out.write(',');
+                out.write(Integer.toString(history.year(i)));
+                out.write(',');
+                double weight = history.value(i);
+                if (Double.isFinite(weight)) {
+                    out.write(Double.toString(weight));
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    private static void writeJsonString(String s, Writer out) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i += 1) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    private static String csvField(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
 }
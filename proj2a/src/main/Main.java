@@ -2,7 +2,9 @@ package main;
 import static utils.Utils.*;
 import org.slf4j.LoggerFactory;
 import browser.NgordnetServer;
+import ngrams.DeltaWatcher;
 import ngrams.NGramMap;
+import plotting.ChartRenderer;
 
 public class Main {
     static {
@@ -12,11 +14,22 @@ public class Main {
 
     public static void main(String[] args) {
         NgordnetServer hns = new NgordnetServer();
-        NGramMap ngm = new NGramMap(TOP_49887_WORDS_FILE, TOTAL_COUNTS_FILE);
+        NGramMap ngm = NGramMap.load(TOP_49887_WORDS_FILE, TOTAL_COUNTS_FILE,
+                TOP_49887_SNAPSHOT_FILE);
+        ngm.precomputeWeights();
+        new DeltaWatcher(ngm, DELTA_FILE).start(5_000);
 
+        hns.enableVirtualThreads(512, 2_000);
         hns.startUp();
-        hns.register("history", new HistoryHandler(ngm));
+        hns.enableCache(1024, 64L << 20, ngm::epoch);
+        hns.enableMetrics();
+        ChartRenderer renderer = new ChartRenderer(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 10_000);
+        hns.register("history", new HistoryHandler(ngm, renderer));
         hns.register("historytext", new HistoryTextHandler(ngm));
+        hns.register("wordsearch", new WordSearchHandler(ngm));
+        hns.register("topwords", new TopWordsHandler(ngm));
+        hns.registerBatch("batch");
 
         System.out.println("Finished server startup! Visit http://localhost:4567/ngordnet_2a.html");
     }
@@ -0,0 +1,36 @@
+package main;
+
+import browser.NgordnetQuery;
+import browser.NgordnetQueryHandler;
+import ngrams.NGramMap;
+
+/**
+ * Lists the k words (10 if k is not given) with the largest total relative frequency between
+ * startYear and endYear, most popular first, one "word: total" line each. The words
+ * parameter is ignored.
+ */
+public class TopWordsHandler extends NgordnetQueryHandler {
+    private static final int DEFAULT_K = 10;
+
+    private NGramMap ngm;
+
+    public TopWordsHandler(NGramMap map) {
+        this.ngm = map;
+    }
+
+    @Override
+    protected NgordnetQueryHandler pinned() {
+        return new TopWordsHandler(ngm.pinned());
+    }
+
+    @Override
+    public String handle(NgordnetQuery q) {
+        int k = (q.k() > 0) ? q.k() : DEFAULT_K;
+        StringBuilder response = new StringBuilder();
+        for (String word : ngm.topWords(k, q.startYear(), q.endYear())) {
+            response.append(word).append(": ")
+                    .append(ngm.totalWeight(word, q.startYear(), q.endYear())).append("\n");
+        }
+        return response.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package main;
+
+import browser.NgordnetQuery;
+import browser.NgordnetQueryHandler;
+import ngrams.NGramMap;
+import ngrams.TimeSeries;
+
+import java.util.List;
+
+/**
+ * Treats every entry of the words parameter as a pattern such as "electr*" or "?at", in
+ * which '*' matches any run of characters and '?' matches any one character. For each
+ * pattern, lists the matching words in alphabetical order (only the first k of them if k is
+ * positive) and gives their summed relative frequency between startYear and endYear.
+ */
+public class WordSearchHandler extends NgordnetQueryHandler {
+    private NGramMap ngm;
+
+    public WordSearchHandler(NGramMap map) {
+        this.ngm = map;
+    }
+
+    @Override
+    protected NgordnetQueryHandler pinned() {
+        return new WordSearchHandler(ngm.pinned());
+    }
+
+    @Override
+    public String handle(NgordnetQuery q) {
+        StringBuilder response = new StringBuilder();
+        for (String pattern : q.words()) {
+            List<String> matches = ngm.wordsMatching(pattern);
+            if (q.k() > 0 && matches.size() > q.k()) {
+                matches = matches.subList(0, q.k());
+            }
+            TimeSeries summed = ngm.summedWeightHistoryMatching(pattern, q.startYear(),
+                    q.endYear());
+            response.append(pattern).append(": ").append(matches).append("\n");
+            response.append(pattern).append(" summed: ").append(summed).append("\n");
+        }
+        return response.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package ngrams;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches an append-only "delta" file and merges every complete line added to it into an
+ * NGramMap. Lines use the same formats as NGramDelta.addLine, so word rows and total count
+ * rows can be mixed in one file.
+ *
+ * The file is checked every few seconds and only the bytes after the last complete line
+ * already applied are read. A line that is still being written is picked up on the next
+ * check. The file is taken to have been replaced, and is read again from the start, if it
+ * is now a different file (by its file key, where the platform has one), if it has shrunk,
+ * or if the last bytes applied are no longer where they were. Rows replace data rather than
+ * add to it, so reading lines a second time does no harm, but the rows of a replaced file
+ * stay merged even if its new version no longer has them.
+ */
+public class DeltaWatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(DeltaWatcher.class);
+
+    /** How many of the last bytes applied are kept to check that the file only grew. */
+    private static final int TAIL_BYTES = 64;
+
+    private final NGramMap map;
+    private final Path path;
+    private final ScheduledExecutorService executor;
+    /** File offset just past the last complete line applied. */
+    private long applied;
+    /** The file key of the file read last, or null if the platform has none. */
+    private Object fileKey;
+    /** The bytes just before APPLIED, at most TAIL_BYTES of them. */
+    private byte[] tail = new byte[0];
+
+    /** Creates a watcher that merges lines added to FILENAME into MAP once started. */
+    public DeltaWatcher(NGramMap map, String filename) {
+        this.map = map;
+        this.path = Path.of(filename);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ngrams-delta-watcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Checks the file now and then every PERIODMILLIS milliseconds, until stop is called. */
+    public void start(long periodMillis) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (IOException e) {
+                LOG.warn("Could not read NGrams delta file {}", path, e);
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops checking the file. */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Merges every complete line added to the file since the last call into the map, and
+     * returns the number of rows merged. Lines that cannot be parsed are reported and skipped.
+     * A missing file has no rows.
+     */
+    public synchronized int poll() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return 0;
+        }
+        Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        byte[] bytes;
+        int length;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (!Objects.equals(key, fileKey) || size < applied || !tailMatches(channel)) {
+                applied = 0;
+                tail = new byte[0];
+            }
+            fileKey = key;
+            if (size - applied > Integer.MAX_VALUE - 8) {
+                throw new IOException("Too much new data in one check: " + (size - applied));
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) (size - applied));
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, applied + buf.position()) < 0) {
+                    break;
+                }
+            }
+            bytes = buf.array();
+            length = buf.position();
+        }
+
+        int complete = length;
+        while (complete > 0 && bytes[complete - 1] != '\n') {
+            complete -= 1;
+        }
+        if (complete == 0) {
+            return 0;
+        }
+
+        NGramDelta delta = new NGramDelta();
+        String text = new String(bytes, 0, complete, StandardCharsets.UTF_8);
+        for (String line : text.split("\r?\n")) {
+            try {
+                delta.addLine(line);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Skipping line of {}: {}", path, e.getMessage());
+            }
+        }
+        map.append(delta);
+        applied += complete;
+        tail = lastBytes(tail, bytes, complete);
+        return delta.size();
+    }
+
+    /** Returns whether the bytes of CHANNEL just before APPLIED are still those of TAIL. */
+    private boolean tailMatches(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(tail.length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, applied - tail.length + buf.position()) < 0) {
+                return false;
+            }
+        }
+        return Arrays.equals(buf.array(), tail);
+    }
+
+    /**
+     * Returns the last TAIL_BYTES (or fewer) bytes of OLD followed by the first LENGTH bytes
+     * of ADDED.
+     */
+    private static byte[] lastBytes(byte[] old, byte[] added, int length) {
+        int fromAdded = Math.min(length, TAIL_BYTES);
+        int fromOld = Math.min(old.length, TAIL_BYTES - fromAdded);
+        byte[] result = new byte[fromOld + fromAdded];
+        System.arraycopy(old, old.length - fromOld, result, 0, fromOld);
+        System.arraycopy(added, length - fromAdded, result, fromOld, fromAdded);
+        return result;
+    }
+}
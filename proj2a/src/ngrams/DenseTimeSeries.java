@@ -0,0 +1,177 @@
+package ngrams;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static ngrams.TimeSeries.MAX_YEAR;
+import static ngrams.TimeSeries.MIN_YEAR;
+
+/**
+ * A fixed-range time series over the years MIN_YEAR to MAX_YEAR, stored as a primitive
+ * double[] indexed by (year - MIN_YEAR) plus a bitmap recording which years are present.
+ *
+ * Years that are absent always hold 0.0, so plus and scale are straight loops over the
+ * whole array that never look at the bitmap and that the JIT can vectorize. The xxxInPlace
+ * methods overwrite this series, and the xxxInto methods write their result into a
+ * destination series (which may be one of the operands), so a chain of operations can run
+ * without allocating anything.
+ */
+public final class DenseTimeSeries {
+
+    /** Number of years covered by every DenseTimeSeries. */
+    public static final int LENGTH = MAX_YEAR - MIN_YEAR + 1;
+
+    private final double[] values = new double[LENGTH];
+    private final long[] present = new long[(LENGTH + 63) >>> 6];
+
+    /** Constructs a new empty DenseTimeSeries. */
+    public DenseTimeSeries() {
+    }
+
+    /** Constructs a copy of OTHER. */
+    public DenseTimeSeries(DenseTimeSeries other) {
+        System.arraycopy(other.values, 0, values, 0, LENGTH);
+        System.arraycopy(other.present, 0, present, 0, present.length);
+    }
+
+    /**
+     * Constructs a DenseTimeSeries holding the same data as TS. Throws an
+     * IllegalArgumentException if TS has a year outside MIN_YEAR to MAX_YEAR.
+     */
+    public DenseTimeSeries(TimeSeries ts) {
+        for (Map.Entry<Integer, Double> entry : ts.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /** Returns whether YEAR is present in this series. */
+    public boolean contains(int year) {
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return false;
+        }
+        int i = year - MIN_YEAR;
+        return (present[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Returns the value for YEAR, or 0.0 if YEAR is not present. */
+    public double get(int year) {
+        return contains(year) ? values[year - MIN_YEAR] : 0.0;
+    }
+
+    /** Sets the value for YEAR to VALUE and marks YEAR as present. */
+    public void put(int year, double value) {
+        int i = index(year);
+        values[i] = value;
+        present[i >>> 6] |= 1L << i;
+    }
+
+    /** Adds VALUE to the value for YEAR and marks YEAR as present. */
+    public void add(int year, double value) {
+        int i = index(year);
+        values[i] += value;
+        present[i >>> 6] |= 1L << i;
+    }
+
+    /** Removes every year from this series. */
+    public void clear() {
+        Arrays.fill(values, 0.0);
+        Arrays.fill(present, 0L);
+    }
+
+    /** Returns the number of years present in this series. */
+    public int size() {
+        int size = 0;
+        for (long bits : present) {
+            size += Long.bitCount(bits);
+        }
+        return size;
+    }
+
+    /** Adds TS to this series, year by year. Same semantics as TimeSeries.plus. */
+    public void plusInPlace(DenseTimeSeries ts) {
+        plusInto(ts, this);
+    }
+
+    /** Stores the year-wise sum of this series and TS in DEST. */
+    public void plusInto(DenseTimeSeries ts, DenseTimeSeries dest) {
+        double[] a = values;
+        double[] b = ts.values;
+        double[] out = dest.values;
+        for (int i = 0; i < LENGTH; i += 1) {
+            out[i] = a[i] + b[i];
+        }
+        for (int i = 0; i < present.length; i += 1) {
+            dest.present[i] = present[i] | ts.present[i];
+        }
+    }
+
+    /**
+     * Divides this series by TS, year by year. Same semantics as TimeSeries.dividedBy: throws
+     * an IllegalArgumentException if TS is missing a year that this series has.
+     */
+    public void dividedByInPlace(DenseTimeSeries ts) {
+        dividedByInto(ts, this);
+    }
+
+    /** Stores the year-wise quotient of this series divided by TS in DEST. */
+    public void dividedByInto(DenseTimeSeries ts, DenseTimeSeries dest) {
+        for (int w = 0; w < present.length; w += 1) {
+            long missing = present[w] & ~ts.present[w];
+            if (missing != 0) {
+                int year = MIN_YEAR + (w << 6) + Long.numberOfTrailingZeros(missing);
+                throw new IllegalArgumentException("Divisor is missing year " + year);
+            }
+        }
+        /* Only present years are divided, so absent years stay exactly 0.0 even where the
+         * divisor is 0.0. DEST may be this series or TS, so every slot is written. */
+        for (int i = 0; i < LENGTH; i += 1) {
+            boolean has = (present[i >>> 6] & (1L << i)) != 0;
+            dest.values[i] = has ? values[i] / ts.values[i] : 0.0;
+        }
+        System.arraycopy(present, 0, dest.present, 0, present.length);
+    }
+
+    /** Multiplies every value in this series by FACTOR. */
+    public void scaleInPlace(double factor) {
+        scaleInto(factor, this);
+    }
+
+    /** Stores this series with every value multiplied by FACTOR in DEST. */
+    public void scaleInto(double factor, DenseTimeSeries dest) {
+        double[] a = values;
+        double[] out = dest.values;
+        for (int i = 0; i < LENGTH; i += 1) {
+            out[i] = a[i] * factor;
+        }
+        System.arraycopy(present, 0, dest.present, 0, present.length);
+    }
+
+    /** Returns a new TimeSeries holding every year of this series. */
+    public TimeSeries toTimeSeries() {
+        return toTimeSeries(MIN_YEAR, MAX_YEAR);
+    }
+
+    /**
+     * Returns a new TimeSeries holding the years of this series between STARTYEAR and
+     * ENDYEAR, inclusive of both ends.
+     */
+    public TimeSeries toTimeSeries(int startYear, int endYear) {
+        TimeSeries ts = new TimeSeries();
+        int from = Math.max(startYear, MIN_YEAR) - MIN_YEAR;
+        int to = Math.min(endYear, MAX_YEAR) - MIN_YEAR;
+        for (int i = from; i <= to; i += 1) {
+            if ((present[i >>> 6] & (1L << i)) != 0) {
+                ts.put(MIN_YEAR + i, values[i]);
+            }
+        }
+        return ts;
+    }
+
+    private static int index(int year) {
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            throw new IllegalArgumentException("Year " + year + " is outside "
+                    + MIN_YEAR + " to " + MAX_YEAR);
+        }
+        return year - MIN_YEAR;
+    }
+}
@@ -0,0 +1,345 @@
+package ngrams;
+
+import java.util.Arrays;
+
+/**
+ * A columnar store for the yearly counts of every word in an NGrams words file.
+ *
+ * Instead of one TimeSeries per word, all data points live in two parallel primitive
+ * columns, YEARS and COUNTS. The data for the word with id W occupies the index range
+ * [offsets[W], offsets[W + 1]) of both columns, sorted by year with no duplicate years.
+ * Slicing a year range is therefore two binary searches plus a copy.
+ *
+ * The words themselves live in a WordDictionary, which gives each word the dense int id
+ * used everywhere else.
+ *
+ * A HistoryStore is never modified after it is built.
+ */
+public class HistoryStore {
+
+    private final WordDictionary words;
+    private final int[] offsets;
+    private final int[] years;
+    private final double[] counts;
+
+    /**
+     * Creates a HistoryStore over already packed columns. Word W of WORDS owns the column
+     * range [OFFSETS[W], OFFSETS[W + 1]), which must be sorted by year without duplicates.
+     */
+    HistoryStore(WordDictionary words, int[] offsets, int[] years, double[] counts) {
+        this.words = words;
+        this.offsets = offsets;
+        this.years = years;
+        this.counts = counts;
+    }
+
+    /** Returns the id of WORD, or -1 if WORD is not in this store. */
+    public int id(String word) {
+        return words.id(word);
+    }
+
+    /** Returns the word with the given ID. */
+    public String word(int id) {
+        return words.word(id);
+    }
+
+    /** Returns the dictionary of the words in this store, which share its ids. */
+    public WordDictionary dictionary() {
+        return words;
+    }
+
+    /** Returns the number of distinct words in this store. */
+    public int wordCount() {
+        return words.size();
+    }
+
+    /** Returns the total number of (word, year, count) data points in this store. */
+    public int size() {
+        return years.length;
+    }
+
+    /** Returns the first column index that belongs to the word with the given ID. */
+    public int start(int id) {
+        return offsets[id];
+    }
+
+    /** Returns one past the last column index that belongs to the word with the given ID. */
+    public int end(int id) {
+        return offsets[id + 1];
+    }
+
+    /** Returns the year stored at column index I. */
+    public int year(int i) {
+        return years[i];
+    }
+
+    /** Returns the count stored at column index I. */
+    public double count(int i) {
+        return counts[i];
+    }
+
+    int[] offsetColumn() {
+        return offsets;
+    }
+
+    int[] yearColumn() {
+        return years;
+    }
+
+    double[] countColumn() {
+        return counts;
+    }
+
+    /**
+     * Returns the first column index of word ID whose year is at least YEAR, or end(ID) if
+     * every year of that word is smaller.
+     */
+    public int lowerBound(int id, int year) {
+        int lo = offsets[id];
+        int hi = offsets[id + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (years[mid] < year) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the first column index of word ID whose year is greater than YEAR, or end(ID)
+     * if there is no such year.
+     */
+    public int upperBound(int id, int year) {
+        return (year == Integer.MAX_VALUE) ? end(id) : lowerBound(id, year + 1);
+    }
+
+    /**
+     * Returns a new TimeSeries holding the counts of word ID between STARTYEAR and ENDYEAR,
+     * inclusive of both ends.
+     */
+    public TimeSeries slice(int id, int startYear, int endYear) {
+        if (startYear > endYear) {
+            return new TimeSeries();
+        }
+        int from = lowerBound(id, startYear);
+        int to = upperBound(id, endYear);
+        return new TimeSeries(years, counts, from, to);
+    }
+
+    /**
+     * Returns a new HistoryStore holding the data of this store overlaid with DELTA: where
+     * both have the same word and year, the count in DELTA wins. Words already in this store
+     * keep their ids and words new in DELTA get the following ids. This store is left as it
+     * is. The columns are copied in as few runs as possible, so merging a small delta costs
+     * little more than copying this store.
+     */
+    HistoryStore merge(HistoryStore delta) {
+        int wordCount = wordCount();
+        int[] deltaIds = new int[wordCount];
+        Arrays.fill(deltaIds, -1);
+        WordDictionary.Builder mergedWords = new WordDictionary.Builder(words);
+        int[] newIds = new int[delta.wordCount()];
+        int added = 0;
+        for (int d = 0; d < delta.wordCount(); d += 1) {
+            int id = words.id(delta.words, d);
+            if (id >= 0) {
+                deltaIds[id] = d;
+            } else {
+                mergedWords.intern(delta.words.arena(), delta.words.offsets()[d],
+                        delta.words.offsets()[d + 1]);
+                newIds[added] = d;
+                added += 1;
+            }
+        }
+
+        int capacity = years.length + delta.size();
+        int[] mergedOffsets = new int[wordCount + added + 1];
+        int[] mergedYears = new int[capacity];
+        double[] mergedCounts = new double[capacity];
+        int out = 0;
+        int id = 0;
+        while (id < wordCount) {
+            if (deltaIds[id] < 0) {
+                /* Copy the whole run of words that the delta does not touch at once. */
+                int runEnd = id;
+                while (runEnd < wordCount && deltaIds[runEnd] < 0) {
+                    mergedOffsets[runEnd] = out + offsets[runEnd] - offsets[id];
+                    runEnd += 1;
+                }
+                int length = offsets[runEnd] - offsets[id];
+                System.arraycopy(years, offsets[id], mergedYears, out, length);
+                System.arraycopy(counts, offsets[id], mergedCounts, out, length);
+                out += length;
+                id = runEnd;
+            } else {
+                mergedOffsets[id] = out;
+                out = mergeWord(offsets[id], offsets[id + 1], delta, deltaIds[id],
+                        mergedYears, mergedCounts, out);
+                id += 1;
+            }
+        }
+        for (int a = 0; a < added; a += 1) {
+            int d = newIds[a];
+            int length = delta.end(d) - delta.start(d);
+            mergedOffsets[wordCount + a] = out;
+            System.arraycopy(delta.years, delta.start(d), mergedYears, out, length);
+            System.arraycopy(delta.counts, delta.start(d), mergedCounts, out, length);
+            out += length;
+        }
+        mergedOffsets[wordCount + added] = out;
+
+        return new HistoryStore(mergedWords.build(), mergedOffsets, Arrays.copyOf(mergedYears, out),
+                Arrays.copyOf(mergedCounts, out));
+    }
+
+    /**
+     * Merges this store's column range [FROM, TO) with the data of word D of DELTA into
+     * OUTYEARS and OUTCOUNTS starting at OUT, and returns the index after the last one written.
+     */
+    private int mergeWord(int from, int to, HistoryStore delta, int d,
+                          int[] outYears, double[] outCounts, int out) {
+        int i = from;
+        int j = delta.start(d);
+        int deltaEnd = delta.end(d);
+        while (i < to || j < deltaEnd) {
+            if (j == deltaEnd || (i < to && years[i] < delta.years[j])) {
+                outYears[out] = years[i];
+                outCounts[out] = counts[i];
+                i += 1;
+            } else {
+                if (i < to && years[i] == delta.years[j]) {
+                    i += 1;
+                }
+                outYears[out] = delta.years[j];
+                outCounts[out] = delta.counts[j];
+                j += 1;
+            }
+            out += 1;
+        }
+        return out;
+    }
+
+    /**
+     * Accumulates (word, year, count) rows in any order and packs them into a HistoryStore.
+     * If the same word and year are added more than once, the last count wins, just like
+     * repeated calls to TimeSeries.put.
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final WordDictionary.Builder words = new WordDictionary.Builder();
+        private int[] rowIds = new int[INITIAL_CAPACITY];
+        private int[] rowYears = new int[INITIAL_CAPACITY];
+        private double[] rowCounts = new double[INITIAL_CAPACITY];
+        private int rows;
+
+        /** Records that WORD occurred COUNT times in YEAR. */
+        public void add(String word, int year, double count) {
+            add(intern(word), year, count);
+        }
+
+        /**
+         * Returns the id that this builder uses for WORD, assigning the next free id if WORD
+         * has not been seen before. Loaders that see the same word many times can intern it
+         * once and then add rows by id.
+         */
+        public int intern(String word) {
+            return words.intern(word);
+        }
+
+        /** Returns the id of the word whose UTF-8 bytes are BYTES[FROM, TO), as intern. */
+        int intern(byte[] bytes, int from, int to) {
+            return words.intern(bytes, from, to);
+        }
+
+        /** Records that the word with the given ID occurred COUNT times in YEAR. */
+        public void add(int id, int year, double count) {
+            if (rows == rowIds.length) {
+                int capacity = rows * 2;
+                rowIds = Arrays.copyOf(rowIds, capacity);
+                rowYears = Arrays.copyOf(rowYears, capacity);
+                rowCounts = Arrays.copyOf(rowCounts, capacity);
+            }
+            rowIds[rows] = id;
+            rowYears[rows] = year;
+            rowCounts[rows] = count;
+            rows += 1;
+        }
+
+        /** Returns a HistoryStore containing every row added so far. */
+        public HistoryStore build() {
+            int wordCount = words.size();
+
+            /* Counting sort of the rows by word id. This keeps rows of the same word in
+             * insertion order, which is what makes "last count wins" work below. */
+            int[] offsets = new int[wordCount + 1];
+            for (int r = 0; r < rows; r += 1) {
+                offsets[rowIds[r] + 1] += 1;
+            }
+            for (int w = 0; w < wordCount; w += 1) {
+                offsets[w + 1] += offsets[w];
+            }
+            int[] next = Arrays.copyOf(offsets, wordCount);
+            int[] years = new int[rows];
+            double[] counts = new double[rows];
+            for (int r = 0; r < rows; r += 1) {
+                int i = next[rowIds[r]];
+                years[i] = rowYears[r];
+                counts[i] = rowCounts[r];
+                next[rowIds[r]] += 1;
+            }
+
+            /* Sort each word's range by year and squeeze out duplicate years. */
+            int[] packedOffsets = new int[wordCount + 1];
+            int out = 0;
+            for (int w = 0; w < wordCount; w += 1) {
+                int from = offsets[w];
+                int to = offsets[w + 1];
+                sortByYear(years, counts, from, to);
+                packedOffsets[w] = out;
+                for (int i = from; i < to; i += 1) {
+                    if (out > packedOffsets[w] && years[out - 1] == years[i]) {
+                        counts[out - 1] = counts[i];
+                    } else {
+                        years[out] = years[i];
+                        counts[out] = counts[i];
+                        out += 1;
+                    }
+                }
+            }
+            packedOffsets[wordCount] = out;
+
+            return new HistoryStore(words.build(), packedOffsets,
+                    Arrays.copyOf(years, out), Arrays.copyOf(counts, out));
+        }
+
+        /**
+         * Stably sorts YEARS[FROM, TO) ascending, moving COUNTS along with it. Input files
+         * are almost always already sorted, so that case is checked for first.
+         */
+        private static void sortByYear(int[] years, double[] counts, int from, int to) {
+            boolean sorted = true;
+            for (int i = from + 1; i < to && sorted; i += 1) {
+                sorted = years[i - 1] <= years[i];
+            }
+            if (sorted) {
+                return;
+            }
+
+            /* Pack (year, original position) into one long so that a plain sort is stable. */
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i += 1) {
+                keys[i - from] = ((long) years[i] << 32) | (i - from);
+            }
+            Arrays.sort(keys);
+            double[] original = Arrays.copyOfRange(counts, from, to);
+            for (int i = 0; i < keys.length; i += 1) {
+                years[from + i] = (int) (keys[i] >> 32);
+                counts[from + i] = original[(int) keys[i]];
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ngrams;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only view of one word's history over a range of years, backed directly by the
+ * columns of an NGramMap rather than by a copy of them.
+ *
+ * The columns behind a view are never written after they are published, so a view is
+ * immutable, costs two array references and two ints to hand out, and may be shared freely
+ * between threads. It stays valid after the map it came from has been appended to: it simply
+ * keeps showing the data of the version it was taken from. Use toTimeSeries for a mutable
+ * copy.
+ */
+public final class HistoryView {
+    private static final HistoryView EMPTY = new HistoryView(new int[0], new double[0], 0, 0);
+
+    private final int[] years;
+    private final double[] values;
+    private final int from;
+    private final int to;
+
+    /** Creates a view of the column slices YEARS[FROM, TO) and VALUES[FROM, TO). */
+    HistoryView(int[] years, double[] values, int from, int to) {
+        this.years = years;
+        this.values = values;
+        this.from = from;
+        this.to = to;
+    }
+
+    /** Returns a view with no years. */
+    static HistoryView empty() {
+        return EMPTY;
+    }
+
+    /** Returns the number of years in this view. */
+    public int size() {
+        return to - from;
+    }
+
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    /** Returns the I-th year of this view, in ascending order. */
+    public int year(int i) {
+        return years[index(i)];
+    }
+
+    /** Returns the value of the I-th year of this view. */
+    public double value(int i) {
+        return values[index(i)];
+    }
+
+    private int index(int i) {
+        if (i < 0 || i >= to - from) {
+            throw new IndexOutOfBoundsException("Index " + i + " of a view of size "
+                    + (to - from));
+        }
+        return from + i;
+    }
+
+    /** Returns whether YEAR is in this view. */
+    public boolean contains(int year) {
+        return find(year) >= 0;
+    }
+
+    /** Returns the value for YEAR. Throws a NoSuchElementException if YEAR is not present. */
+    public double get(int year) {
+        int i = find(year);
+        if (i < 0) {
+            throw new NoSuchElementException("Year " + year + " is not in this history");
+        }
+        return values[i];
+    }
+
+    /** Returns the column index holding YEAR, or -1. */
+    private int find(int year) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (years[mid] < year) {
+                lo = mid + 1;
+            } else if (years[mid] > year) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Passes every (year, value) pair of this view to ACTION, in ascending year order. */
+    public void forEach(YearValueConsumer action) {
+        for (int i = from; i < to; i += 1) {
+            action.accept(years[i], values[i]);
+        }
+    }
+
+    /** Returns the sum of the values of this view. */
+    public double sum() {
+        double sum = 0.0;
+        for (int i = from; i < to; i += 1) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /** Returns an unmodifiable list of the years of this view, backed by the view. */
+    public List<Integer> years() {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int i) {
+                return year(i);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    /** Returns an unmodifiable list of the values of this view, backed by the view. */
+    public List<Double> data() {
+        return new AbstractList<>() {
+            @Override
+            public Double get(int i) {
+                return value(i);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    /** Returns a new, mutable TimeSeries holding the same data as this view. */
+    public TimeSeries toTimeSeries() {
+        return new TimeSeries(years, values, from, to);
+    }
+
+    /** Returns the same text as toTimeSeries().toString(). */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("{");
+        for (int i = from; i < to; i += 1) {
+            if (i > from) {
+                s.append(", ");
+            }
+            s.append(years[i]).append('=').append(values[i]);
+        }
+        return s.append('}').toString();
+    }
+}
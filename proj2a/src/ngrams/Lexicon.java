@@ -0,0 +1,327 @@
+package ngrams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * A sorted index over the words of a HistoryStore that answers prefix and wildcard queries
+ * without looking at every word.
+ *
+ * The word ids are kept in two orders: by word, and by word read backwards. Both compare
+ * the words' UTF-8 bytes in the WordDictionary, so no String is held. The words sharing a
+ * prefix form one contiguous run of the first array, found with two binary searches, and the
+ * words sharing a suffix form one contiguous run of the second. A wildcard
+ * pattern such as "electr*ity" is answered by scanning the shorter of the run for its literal
+ * prefix "electr" and the run for its literal suffix "ity", so the work done is proportional
+ * to the size of that run rather than to the size of the lexicon. Only a pattern with
+ * neither a literal prefix nor a literal suffix, such as "*ect*", has to scan every word.
+ */
+public class Lexicon {
+
+    private final WordDictionary words;
+    /** Word ids in word order. */
+    private final int[] sorted;
+    /** Word ids in the order of the reversed words. */
+    private final int[] reversed;
+    /** Position of each word id in sorted. */
+    private final int[] rank;
+
+    /** Run length that sortIds sorts by insertion before it starts merging runs. */
+    private static final int INSERTION_RUN = 16;
+
+    /** Builds the index over every word of STORE. */
+    public Lexicon(HistoryStore store) {
+        words = store.dictionary();
+        int n = words.size();
+        sorted = identity(n);
+        sortIds(sorted, words::compare);
+        reversed = identity(n);
+        sortIds(reversed, words::compareReversed);
+        rank = ranks(sorted);
+    }
+
+    private Lexicon(WordDictionary words, int[] sorted, int[] reversed) {
+        this.words = words;
+        this.sorted = sorted;
+        this.reversed = reversed;
+        this.rank = ranks(sorted);
+    }
+
+    /**
+     * Returns the index over every word of STORE, which must hold the words of this index
+     * under the same ids followed by any new words, as HistoryStore.merge leaves them. Only
+     * the new words are sorted, and they are then merged into both orders, so K new words
+     * among N cost O(N + K log K) rather than a sort of all N + K.
+     */
+    Lexicon merge(HistoryStore store) {
+        WordDictionary merged = store.dictionary();
+        int n = sorted.length;
+        int[] added = new int[merged.size() - n];
+        for (int i = 0; i < added.length; i += 1) {
+            added[i] = n + i;
+        }
+        int[] addedReversed = added.clone();
+        sortIds(added, merged::compare);
+        sortIds(addedReversed, merged::compareReversed);
+        return new Lexicon(merged, mergeSorted(sorted, added, merged::compare),
+                mergeSorted(reversed, addedReversed, merged::compareReversed));
+    }
+
+    /** Returns the position of each word id in SORTED. */
+    private static int[] ranks(int[] sorted) {
+        int[] rank = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i += 1) {
+            rank[sorted[i]] = i;
+        }
+        return rank;
+    }
+
+    /** Returns the ids of A and of B, both already sorted by ORDER, in one sorted array. */
+    private static int[] mergeSorted(int[] a, int[] b, IntBinaryOperator order) {
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int out = 0;
+        while (i < a.length && j < b.length) {
+            if (order.applyAsInt(a[i], b[j]) <= 0) {
+                result[out] = a[i];
+                i += 1;
+            } else {
+                result[out] = b[j];
+                j += 1;
+            }
+            out += 1;
+        }
+        System.arraycopy(a, i, result, out, a.length - i);
+        System.arraycopy(b, j, result, out + a.length - i, b.length - j);
+        return result;
+    }
+
+    /** Returns the ids 0 to N - 1, in order. */
+    private static int[] identity(int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    /**
+     * Sorts IDS by ORDER, which compares two ids, with a bottom-up merge sort over the int[]
+     * itself so that no id is ever boxed. Runs of INSERTION_RUN ids are first sorted by
+     * insertion, and two runs already in order are not merged, so ids that arrive nearly
+     * sorted (as the words of an NGrams file do) cost little more than one pass.
+     */
+    static void sortIds(int[] ids, IntBinaryOperator order) {
+        int n = ids.length;
+        for (int lo = 0; lo < n; lo += INSERTION_RUN) {
+            int hi = Math.min(lo + INSERTION_RUN, n);
+            for (int i = lo + 1; i < hi; i += 1) {
+                int id = ids[i];
+                int j = i - 1;
+                while (j >= lo && order.applyAsInt(ids[j], id) > 0) {
+                    ids[j + 1] = ids[j];
+                    j -= 1;
+                }
+                ids[j + 1] = id;
+            }
+        }
+
+        int[] buffer = new int[n];
+        for (int width = INSERTION_RUN; width < n; width *= 2) {
+            for (int lo = 0; lo + width < n; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(mid + width, n);
+                if (order.applyAsInt(ids[mid - 1], ids[mid]) <= 0) {
+                    continue;
+                }
+                System.arraycopy(ids, lo, buffer, lo, mid - lo);
+                int a = lo;
+                int b = mid;
+                int out = lo;
+                while (a < mid && b < hi) {
+                    if (order.applyAsInt(buffer[a], ids[b]) <= 0) {
+                        ids[out] = buffer[a];
+                        a += 1;
+                    } else {
+                        ids[out] = ids[b];
+                        b += 1;
+                    }
+                    out += 1;
+                }
+                System.arraycopy(buffer, a, ids, out, mid - a);
+            }
+        }
+    }
+
+    /** Returns the number of words in this index. */
+    public int size() {
+        return sorted.length;
+    }
+
+    /** Returns the ids of every word starting with PREFIX, in word order. */
+    public int[] withPrefix(String prefix) {
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        int from = lowerBound(key, false);
+        return Arrays.copyOfRange(sorted, from, prefixEnd(key, false, from));
+    }
+
+    /**
+     * Returns the ids of every word matching PATTERN, in word order (see WordDictionary). In
+     * PATTERN, '*' matches any run of characters, including none, and '?' matches exactly one
+     * character. Every other character matches only itself, so a pattern without wildcards
+     * finds at most the one word equal to it.
+     */
+    public int[] matching(String pattern) {
+        int firstWildcard = indexOfWildcard(pattern);
+        if (firstWildcard < 0) {
+            int id = words.id(pattern);
+            return (id >= 0) ? new int[] {id} : new int[0];
+        }
+        if (firstWildcard == pattern.length() - 1 && pattern.endsWith("*")) {
+            return withPrefix(pattern.substring(0, firstWildcard));
+        }
+        int lastWildcard = lastIndexOfWildcard(pattern);
+        byte[] prefix = pattern.substring(0, firstWildcard).getBytes(StandardCharsets.UTF_8);
+        byte[] reversedSuffix = reverse(
+                pattern.substring(lastWildcard + 1).getBytes(StandardCharsets.UTF_8));
+
+        int prefixFrom = lowerBound(prefix, false);
+        int prefixTo = prefixEnd(prefix, false, prefixFrom);
+        int suffixFrom = lowerBound(reversedSuffix, true);
+        int suffixTo = prefixEnd(reversedSuffix, true, suffixFrom);
+
+        if (prefixTo - prefixFrom <= suffixTo - suffixFrom) {
+            return collect(pattern, sorted, prefixFrom, prefixTo, false);
+        }
+        return collect(pattern, reversed, suffixFrom, suffixTo, true);
+    }
+
+    /**
+     * Returns the ids among [FROM, TO) of IDS whose words match PATTERN, in word order. If
+     * OUTOFORDER, IDS is not in word order and the matches are sorted.
+     */
+    private int[] collect(String pattern, int[] ids, int from, int to, boolean outOfOrder) {
+        int[] matches = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i += 1) {
+            if (matches(pattern, words.word(ids[i]))) {
+                matches[count] = ids[i];
+                count += 1;
+            }
+        }
+        matches = Arrays.copyOf(matches, count);
+        if (outOfOrder) {
+            for (int i = 0; i < count; i += 1) {
+                matches[i] = rank[matches[i]];
+            }
+            Arrays.sort(matches);
+            for (int i = 0; i < count; i += 1) {
+                matches[i] = sorted[matches[i]];
+            }
+        }
+        return matches;
+    }
+
+    /** Returns whether all of WORD matches PATTERN, with '*' and '?' as wildcards. */
+    static boolean matches(String pattern, String word) {
+        int p = 0;
+        int w = 0;
+        /* Where the last '*' was, and how much of WORD it has swallowed so far. */
+        int star = -1;
+        int starMatch = 0;
+        while (w < word.length()) {
+            if (p < pattern.length()
+                    && (pattern.charAt(p) == '?' || pattern.charAt(p) == word.charAt(w))) {
+                p += 1;
+                w += 1;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                star = p;
+                starMatch = w;
+                p += 1;
+            } else if (star >= 0) {
+                p = star + 1;
+                starMatch += 1;
+                w = starMatch;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p += 1;
+        }
+        return p == pattern.length();
+    }
+
+    /**
+     * Returns the first index of sorted (or of reversed, if BACKWARDS) whose word is not less
+     * than KEY (read backwards, if BACKWARDS, in which case KEY is already reversed).
+     */
+    private int lowerBound(byte[] key, boolean backwards) {
+        int[] ids = backwards ? reversed : sorted;
+        int lo = 0;
+        int hi = ids.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = backwards ? words.compareReversed(ids[mid], key)
+                    : words.compare(ids[mid], key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the end of the run of words starting with KEY (ending with it, if BACKWARDS)
+     * that begins at index FROM, which must be lowerBound(KEY, BACKWARDS).
+     */
+    private int prefixEnd(byte[] key, boolean backwards, int from) {
+        int[] ids = backwards ? reversed : sorted;
+        int lo = from;
+        int hi = ids.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            boolean inRun = backwards ? words.endsWithReversed(ids[mid], key)
+                    : words.startsWith(ids[mid], key);
+            if (inRun) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i += 1) {
+            if (pattern.charAt(i) == '*' || pattern.charAt(i) == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfWildcard(String pattern) {
+        for (int i = pattern.length() - 1; i >= 0; i -= 1) {
+            if (pattern.charAt(i) == '*' || pattern.charAt(i) == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] reverse(byte[] bytes) {
+        byte[] result = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i += 1) {
+            result[i] = bytes[bytes.length - 1 - i];
+        }
+        return result;
+    }
+}
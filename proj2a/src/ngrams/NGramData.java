@@ -0,0 +1,141 @@
+package ngrams;
+
+import static ngrams.TimeSeries.MAX_YEAR;
+import static ngrams.TimeSeries.MIN_YEAR;
+
+/**
+ * One version of the data behind an NGramMap: the word histories, the total counts and
+ * everything derived from them. A version is never changed once an NGramMap has published
+ * it, except for filling in its lazily built parts, so a reader that takes one reference to
+ * it sees a consistent view however many appends happen meanwhile.
+ */
+class NGramData {
+    final HistoryStore words;
+    /** Total counts of the years MIN_YEAR to MAX_YEAR. */
+    final DenseTimeSeries totals;
+    /** Sorted index of the words, for prefix and wildcard queries. Built on demand. */
+    private volatile Lexicon lexicon;
+    /** Relative frequencies, parallel to the count column of words. Built on demand. */
+    private volatile double[] weights;
+    /** Prefix sums and per-decade rankings of the weights, for top-K queries. Built on demand. */
+    private volatile PopularityIndex popularity;
+
+    NGramData(HistoryStore words, TimeSeries totals) {
+        this(words, inRange(totals, new DenseTimeSeries()));
+    }
+
+    private NGramData(HistoryStore words, DenseTimeSeries totals) {
+        this.words = words;
+        this.totals = totals;
+    }
+
+    /** Copies the years of TS between MIN_YEAR and MAX_YEAR into DEST and returns DEST. */
+    private static DenseTimeSeries inRange(TimeSeries ts, DenseTimeSeries dest) {
+        for (int year : ts.keySet()) {
+            if (year >= MIN_YEAR && year <= MAX_YEAR) {
+                dest.put(year, ts.get(year));
+            }
+        }
+        return dest;
+    }
+
+    /**
+     * Returns a new version holding this data overlaid with DELTA. Whatever was already built
+     * lazily for this version is built for the new one straight away, so that readers of the
+     * new version do not have to wait for it. A lexicon is not rebuilt but extended with just
+     * the words new in DELTA.
+     */
+    NGramData merge(NGramDelta delta) {
+        HistoryStore mergedWords = words.merge(delta.words.build());
+        DenseTimeSeries mergedTotals = inRange(delta.totals, new DenseTimeSeries(totals));
+        NGramData merged = new NGramData(mergedWords, mergedTotals);
+        Lexicon built = lexicon;
+        if (built != null) {
+            merged.lexicon = built.merge(mergedWords);
+        }
+        if (popularity != null) {
+            merged.popularity();
+        } else if (weights != null) {
+            merged.weights();
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the weight column: entry I is count(I) divided by the total count of year(I),
+     * or NaN if the total counts do not have that year.
+     */
+    double[] weights() {
+        double[] result = weights;
+        if (result == null) {
+            synchronized (this) {
+                result = weights;
+                if (result == null) {
+                    result = new double[words.size()];
+                    for (int i = 0; i < result.length; i += 1) {
+                        int year = words.year(i);
+                        result[i] = totals.contains(year)
+                                ? words.count(i) / totals.get(year) : Double.NaN;
+                    }
+                    weights = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    Lexicon lexicon() {
+        Lexicon result = lexicon;
+        if (result == null) {
+            synchronized (this) {
+                result = lexicon;
+                if (result == null) {
+                    result = new Lexicon(words);
+                    lexicon = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    PopularityIndex popularity() {
+        PopularityIndex index = popularity;
+        if (index == null) {
+            synchronized (this) {
+                index = popularity;
+                if (index == null) {
+                    index = new PopularityIndex(words, weights());
+                    popularity = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Checks that the total counts have every year in column indices [FROM, TO) of WEIGHTS.
+     * Throws an IllegalArgumentException otherwise, just like TimeSeries.dividedBy.
+     */
+    void checkTotals(double[] weights, int from, int to) {
+        for (int i = from; i < to; i += 1) {
+            if (Double.isNaN(weights[i]) && !totals.contains(words.year(i))) {
+                throw new IllegalArgumentException("Total counts are missing year "
+                        + words.year(i));
+            }
+        }
+    }
+
+    /**
+     * Adds the relative frequency of word ID in each year between STARTYEAR and ENDYEAR to SUM,
+     * straight from the weight column.
+     */
+    void addWeights(int id, int startYear, int endYear, DenseTimeSeries sum) {
+        double[] w = weights();
+        int from = words.lowerBound(id, startYear);
+        int to = words.upperBound(id, endYear);
+        checkTotals(w, from, to);
+        for (int i = from; i < to; i += 1) {
+            sum.add(words.year(i), w[i]);
+        }
+    }
+}
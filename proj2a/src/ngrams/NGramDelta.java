@@ -0,0 +1,54 @@
+package ngrams;
+
+/**
+ * A batch of new word rows and total count rows to be merged into a live NGramMap with
+ * NGramMap.append. Rows replace existing data for the same word and year (or the same year
+ * of the total counts), so applying the same delta twice has the same effect as applying it
+ * once.
+ */
+public class NGramDelta {
+    final HistoryStore.Builder words = new HistoryStore.Builder();
+    final TimeSeries totals = new TimeSeries();
+    private int rows;
+
+    /** Records that WORD occurred COUNT times in YEAR. */
+    public void addWord(String word, int year, double count) {
+        words.add(word, year, count);
+        rows += 1;
+    }
+
+    /** Records that COUNT words were recorded in total in YEAR. */
+    public void addTotal(int year, double count) {
+        totals.put(year, count);
+        rows += 1;
+    }
+
+    /**
+     * Records one LINE in either of the input file formats: a words file row of the form
+     * "word\tyear\tcount\t..." or a counts file row of the form "year,count,...". A line
+     * containing a tab is taken to be a words file row. Empty lines are skipped. Throws an
+     * IllegalArgumentException if LINE is neither.
+     */
+    public void addLine(String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            if (line.indexOf('\t') >= 0) {
+                String[] fields = line.split("\t");
+                addWord(fields[0], Integer.parseInt(fields[1].trim()),
+                        Double.parseDouble(fields[2].trim()));
+            } else {
+                String[] fields = line.split(",");
+                addTotal(Integer.parseInt(fields[0].trim()), Double.parseDouble(fields[1].trim()));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed delta row: " + line, e);
+        }
+    }
+
+    /** Returns the number of rows recorded so far. */
+    public int size() {
+        return rows;
+    }
+}
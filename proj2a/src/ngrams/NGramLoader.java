@@ -0,0 +1,375 @@
+package ngrams;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads NGrams words files and counts files in parallel.
+ *
+ * The file is memory-mapped and cut into chunks that each end on a line boundary. Every
+ * chunk is parsed on the common fork-join pool by a hand-written scanner that reads the
+ * mapped bytes directly: no regex, no String.split, and no String allocation at all. Each
+ * chunk interns its words' UTF-8 bytes into a WordDictionary of its own, and the chunks are
+ * then merged in file order, byte range by byte range, so a later row for the same word and
+ * year still replaces an earlier one.
+ */
+public class NGramLoader {
+
+    /** Chunks are never cut smaller than this, so small files are parsed on one thread. */
+    private static final long MIN_CHUNK_BYTES = 1 << 22;
+    /** Number of chunks to aim for per worker thread, to even out uneven chunks. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private NGramLoader() {
+    }
+
+    /**
+     * Returns a HistoryStore holding every row of the tab-separated words file FILENAME.
+     * Each line has the form "word\tyear\tcount\t..."; empty lines are skipped.
+     */
+    public static HistoryStore loadWords(String filename) {
+        return loadWords(filename, 0);
+    }
+
+    /**
+     * As loadWords(FILENAME), but cuts the file into chunks of about CHUNKBYTES, or picks the
+     * chunk size itself if CHUNKBYTES is 0.
+     */
+    static HistoryStore loadWords(String filename, long chunkBytes) {
+        HistoryStore.Builder builder = new HistoryStore.Builder();
+        for (Chunk chunk : parse(filename, '\t', true, chunkBytes)) {
+            byte[] arena = chunk.words.arena();
+            int[] offsets = chunk.words.offsets();
+            int[] globalIds = new int[chunk.words.size()];
+            for (int w = 0; w < globalIds.length; w += 1) {
+                globalIds[w] = builder.intern(arena, offsets[w], offsets[w + 1]);
+            }
+            for (int r = 0; r < chunk.rows; r += 1) {
+                builder.add(globalIds[chunk.wordIds[r]], chunk.years[r], chunk.counts[r]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a TimeSeries holding the comma-separated counts file FILENAME. Each line has
+     * the form "year,count,..."; empty lines are skipped.
+     */
+    public static TimeSeries loadCounts(String filename) {
+        return loadCounts(filename, 0);
+    }
+
+    /** As loadCounts(FILENAME), but with a chunk size CHUNKBYTES as for loadWords. */
+    static TimeSeries loadCounts(String filename, long chunkBytes) {
+        TimeSeries counts = new TimeSeries();
+        for (Chunk chunk : parse(filename, ',', false, chunkBytes)) {
+            for (int r = 0; r < chunk.rows; r += 1) {
+                counts.put(chunk.years[r], chunk.counts[r]);
+            }
+        }
+        return counts;
+    }
+
+    /** Parses FILENAME into chunks of about CHUNKBYTES (0 to choose), in file order. */
+    private static List<Chunk> parse(String filename, char separator, boolean hasWord,
+                                     long chunkBytes) {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            long[] bounds = chunkBoundaries(channel, chunkBytes);
+            List<ChunkTask> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i += 1) {
+                long length = bounds[i + 1] - bounds[i];
+                MappedByteBuffer buf =
+                        channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], length);
+                tasks.add(new ChunkTask(buf, bounds[i], (byte) separator, hasWord, filename));
+            }
+
+            List<Chunk> chunks = new ArrayList<>();
+            if (tasks.size() == 1) {
+                chunks.add(tasks.get(0).compute());
+            } else {
+                try {
+                    ForkJoinPool.commonPool().invoke(new RecursiveTask<Void>() {
+                        @Override
+                        protected Void compute() {
+                            ForkJoinTask.invokeAll(tasks);
+                            return null;
+                        }
+                    });
+                } catch (IllegalArgumentException e) {
+                    /* A chunk that failed on another thread is rethrown as a copy wrapping
+                     * the original, whose message would then start with the class name. */
+                    if (e.getCause() instanceof IllegalArgumentException original) {
+                        throw original;
+                    }
+                    throw e;
+                }
+                for (ChunkTask task : tasks) {
+                    chunks.add(task.join());
+                }
+            }
+            return chunks;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + filename, e);
+        }
+    }
+
+    /**
+     * Returns the byte offsets at which the file behind CHANNEL is cut into chunks. The first
+     * entry is 0, the last is the file size, and every other entry is just past a '\n'.
+     * Every chunk but the last is at least CHUNKBYTES long. If CHUNKBYTES is 0, it is chosen
+     * from the file size and the parallelism of the common pool, but never below
+     * MIN_CHUNK_BYTES.
+     */
+    static long[] chunkBoundaries(FileChannel channel, long chunkBytes) throws IOException {
+        long size = channel.size();
+        long target = chunkBytes;
+        if (target <= 0) {
+            int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            target = Math.max(MIN_CHUNK_BYTES, size / ((long) parallelism * CHUNKS_PER_THREAD));
+        }
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = target;
+        while (pos < size) {
+            long lineEnd = nextLineStart(channel, pos, probe);
+            if (lineEnd >= size) {
+                break;
+            }
+            bounds.add(lineEnd);
+            pos = lineEnd + target;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /** Returns the offset just past the first '\n' at or after POS, or the file size. */
+    private static long nextLineStart(FileChannel channel, long pos, ByteBuffer probe)
+            throws IOException {
+        long size = channel.size();
+        while (pos < size) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i += 1) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /** The rows parsed from one chunk. Word ids are local to the chunk. */
+    private static class Chunk {
+        /** The chunk's words; null for a file without a word column. */
+        WordDictionary words;
+        int[] wordIds = new int[1024];
+        int[] years = new int[1024];
+        double[] counts = new double[1024];
+        int rows;
+
+        void add(int wordId, int year, double count) {
+            if (rows == years.length) {
+                int capacity = rows * 2;
+                wordIds = Arrays.copyOf(wordIds, capacity);
+                years = Arrays.copyOf(years, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            wordIds[rows] = wordId;
+            years[rows] = year;
+            counts[rows] = count;
+            rows += 1;
+        }
+    }
+
+    /**
+     * Parses one mapped chunk. A task is only ever run inside this process, so the mapped
+     * buffer and the parser state are transient.
+     */
+    private static class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer buf;
+        private final long fileOffset;
+        private final byte separator;
+        private final boolean hasWord;
+        private final String filename;
+
+        /** Chunk-local ids of the words seen so far, keyed on their UTF-8 bytes. */
+        private final transient WordDictionary.Builder words = new WordDictionary.Builder();
+        /** Holds the bytes of the word being looked up, copied out of BUF. */
+        private transient byte[] scratch = new byte[64];
+
+        /** Position of the scanner within BUF. */
+        private int pos;
+
+        ChunkTask(ByteBuffer buf, long fileOffset, byte separator, boolean hasWord,
+                  String filename) {
+            this.buf = buf;
+            this.fileOffset = fileOffset;
+            this.separator = separator;
+            this.hasWord = hasWord;
+            this.filename = filename;
+        }
+
+        @Override
+        protected Chunk compute() {
+            Chunk chunk = new Chunk();
+            int limit = buf.limit();
+            while (pos < limit) {
+                int lineStart = pos;
+                if (buf.get(pos) == '\n' || buf.get(pos) == '\r') {
+                    pos += 1;
+                    continue;
+                }
+
+                int wordId = -1;
+                if (hasWord) {
+                    int wordEnd = fieldEnd(lineStart, limit);
+                    wordId = internWord(lineStart, wordEnd - lineStart);
+                    pos = wordEnd;
+                    expect(separator, lineStart);
+                }
+                int year = parseInt(lineStart);
+                expect(separator, lineStart);
+                double count = parseDouble(lineStart);
+
+                /* Skip whatever columns are left on this line. */
+                pos = indexOf((byte) '\n', pos, limit) + 1;
+                chunk.add(wordId, year, count);
+            }
+            if (hasWord) {
+                chunk.words = words.build();
+            }
+            return chunk;
+        }
+
+        /** Returns the index of the first B at or after FROM, or LIMIT if there is none. */
+        private int indexOf(byte b, int from, int limit) {
+            for (int i = from; i < limit; i += 1) {
+                if (buf.get(i) == b) {
+                    return i;
+                }
+            }
+            return limit;
+        }
+
+        /** Returns the index of the first separator or line break at or after FROM. */
+        private int fieldEnd(int from, int limit) {
+            int i = from;
+            while (i < limit) {
+                byte b = buf.get(i);
+                if (b == separator || b == '\n' || b == '\r') {
+                    break;
+                }
+                i += 1;
+            }
+            return i;
+        }
+
+        private void expect(byte b, int lineStart) {
+            if (pos >= buf.limit() || buf.get(pos) != b) {
+                throw malformed(lineStart);
+            }
+            pos += 1;
+        }
+
+        private IllegalArgumentException malformed(int lineStart) {
+            int lineEnd = indexOf((byte) '\n', lineStart, buf.limit());
+            byte[] line = new byte[lineEnd - lineStart];
+            buf.get(lineStart, line);
+            return new IllegalArgumentException("Malformed line at byte " + (fileOffset + lineStart)
+                    + " of " + filename + ": " + new String(line, StandardCharsets.UTF_8));
+        }
+
+        private int parseInt(int lineStart) {
+            boolean negative = pos < buf.limit() && buf.get(pos) == '-';
+            if (negative) {
+                pos += 1;
+            }
+            int start = pos;
+            int value = 0;
+            while (pos < buf.limit()) {
+                int digit = buf.get(pos) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                pos += 1;
+            }
+            if (pos == start) {
+                throw malformed(lineStart);
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a count. Plain integers of up to 18 digits (every count in the NGrams data)
+         * are converted exactly by hand; anything else is handed to Double.parseDouble so that
+         * the result always matches it bit for bit.
+         */
+        private double parseDouble(int lineStart) {
+            int start = pos;
+            int limit = buf.limit();
+            boolean negative = pos < limit && buf.get(pos) == '-';
+            if (negative) {
+                pos += 1;
+            }
+            int digitsStart = pos;
+            long value = 0;
+            while (pos < limit) {
+                int digit = buf.get(pos) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                pos += 1;
+            }
+            int digits = pos - digitsStart;
+            byte next = (pos < limit) ? buf.get(pos) : (byte) '\n';
+            if (digits > 0 && digits <= 18 && (next == separator || next == '\n' || next == '\r')) {
+                return negative ? -(double) value : (double) value;
+            }
+
+            pos = fieldEnd(pos, limit);
+            byte[] field = new byte[pos - start];
+            buf.get(start, field);
+            try {
+                return Double.parseDouble(new String(field, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw malformed(lineStart);
+            }
+        }
+
+        /** Returns the chunk-local id of the word stored in BUF[START, START + LENGTH). */
+        private int internWord(int start, int length) {
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buf.get(start, scratch, 0, length);
+            return words.intern(scratch, 0, length);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package ngrams;
 
-import edu.princeton.cs.algs4.In;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 import static ngrams.TimeSeries.MAX_YEAR;
 import static ngrams.TimeSeries.MIN_YEAR;
@@ -17,53 +19,114 @@ import static ngrams.TimeSeries.MIN_YEAR;
  * file". It is not a map in the strict sense, but it does provide additional
  * functionality.
  *
+ * An NGramMap may be shared by any number of threads. Its data is never modified in
+ * place, so the countView and weightView methods can hand out read-only views of it
+ * instead of the defensive copies made by countHistory and weightHistory.
+ *
  * @author Josh Hug
  */
 public class NGramMap {
 
+    private static final Logger LOG = LoggerFactory.getLogger(NGramMap.class);
+
+    /** The current version of the data. Replaced as a whole, never changed, by append. */
+    private volatile NGramData data;
+    /** The number of appends that have changed the data. Always updated after data. */
+    private volatile long epoch;
+    /** Whether this map is a view of one version of another map's data. See pinned. */
+    private final boolean pinned;
+
     /**
      * Constructs an NGramMap from WORDSFILENAME and COUNTSFILENAME.
      */
-
-    private Map<String, TimeSeries> wordsData;
-    private TimeSeries countData;
-
     public NGramMap(String wordsFilename, String countsFilename) {
-        this.wordsData = new HashMap<>();
-        this.countData = new TimeSeries();
+        this(NGramLoader.loadWords(wordsFilename), NGramLoader.loadCounts(countsFilename));
+    }
 
-        In wordsIn = new In(wordsFilename);
-        while (wordsIn.hasNextLine()) {
-            String line = wordsIn.readLine();
-            if (line.isEmpty()) {
-                continue;
-            }
+    private NGramMap(HistoryStore wordsData, TimeSeries countData) {
+        this.data = new NGramData(wordsData, countData);
+        this.pinned = false;
+    }
 
-            String[] parts = line.split("\\t");
-            String word = parts[0];
-            int year = Integer.parseInt(parts[1]);
-            double count = Double.parseDouble(parts[2]);
-
-            if (!this.wordsData.containsKey(word)) {
-                TimeSeries ts = new TimeSeries();
-                ts.put(year, count);
-                this.wordsData.put(word, ts);
-            } else {
-                TimeSeries ts = this.wordsData.get(word);
-                ts.put(year, count);
-            }
+    private NGramMap(NGramData data, long epoch) {
+        this.data = data;
+        this.epoch = epoch;
+        this.pinned = true;
+    }
+
+    /**
+     * Returns an NGramMap for WORDSFILENAME and COUNTSFILENAME, read from the binary snapshot
+     * SNAPSHOTFILENAME if that snapshot is present and was built from the current versions of
+     * both files. Otherwise parses the text files as usual and then (re)writes the snapshot,
+     * so that the next start is fast. A snapshot that cannot be written is not an error; it
+     * is logged as a warning and the map is returned all the same.
+     */
+    public static NGramMap load(String wordsFilename, String countsFilename,
+                                String snapshotFilename) {
+        NGramSnapshot snapshot = NGramSnapshot.read(snapshotFilename, wordsFilename,
+                countsFilename);
+        if (snapshot != null) {
+            return new NGramMap(snapshot.words, snapshot.totals);
         }
 
-        In countsIn = new In(countsFilename);
-        while (countsIn.hasNextLine()) {
-            String line = countsIn.readLine();
-            String[] parts = line.split(",");
+        NGramMap ngm = new NGramMap(wordsFilename, countsFilename);
+        try {
+            NGramSnapshot.write(snapshotFilename, wordsFilename, countsFilename,
+                    ngm.data.words, ngm.totalCountHistory());
+        } catch (IOException e) {
+            LOG.warn("Could not write NGrams snapshot {}", snapshotFilename, e);
+        }
+        return ngm;
+    }
 
-            int year = Integer.parseInt(parts[0]);
-            double count = Double.parseDouble(parts[1]);
+    /**
+     * Computes the relative frequency of every data point now, rather than on the first call to
+     * weightHistory or summedWeightHistory, along with the index behind topWords and the
+     * lexicon behind wordsMatching. Servers call this at startup so that no request has to pay
+     * for it.
+     */
+    public void precomputeWeights() {
+        NGramData d = data;
+        d.popularity();
+        d.lexicon();
+    }
 
-            this.countData.put(year, count);
+    /**
+     * Merges the rows of DELTA into this map. A word row replaces the count of that word and
+     * year, and a total count row replaces the total of that year, just as a later line of an
+     * input file would. Readers are never blocked: every query works on the version of the
+     * data that was current when it started, and sees the new rows only once the merge is
+     * complete. Each append copies the data, so rows should be appended in batches.
+     */
+    public synchronized void append(NGramDelta delta) {
+        if (pinned) {
+            throw new IllegalStateException("A pinned NGramMap cannot be appended to");
         }
+        if (delta.size() > 0) {
+            data = data.merge(delta);
+            epoch += 1;
+        }
+    }
+
+    /**
+     * Returns the version of the data, which goes up by one with every append that changes
+     * it. A query that reads the epoch before it reads any data sees data at least as new as
+     * that epoch, so anything computed from it may be cached under that epoch.
+     */
+    public long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns an NGramMap that answers every query from the version of the data that is
+     * current now, however many appends happen afterwards. It shares that version, and
+     * whatever has been or will be built lazily for it such as the weight column, with this
+     * map, so pinning is cheap. A pinned map cannot be appended to.
+     */
+    public NGramMap pinned() {
+        /* Read the epoch first, so the data is at least as new as the epoch reported. */
+        long current = epoch;
+        return new NGramMap(data, current);
     }
 
     /**
@@ -74,8 +137,10 @@ public class NGramMap {
      * returns an empty TimeSeries.
      */
     public TimeSeries countHistory(String word, int startYear, int endYear) {
-        if (wordsData.containsKey(word)) {
-            return new TimeSeries(wordsData.get(word), startYear, endYear);
+        HistoryStore wordsData = data.words;
+        int id = wordsData.id(word);
+        if (id >= 0) {
+            return wordsData.slice(id, startYear, endYear);
         } else {
             return new TimeSeries();
         }
@@ -88,18 +153,14 @@ public class NGramMap {
      * is not in the data files, returns an empty TimeSeries.
      */
     public TimeSeries countHistory(String word) {
-        if (wordsData.containsKey(word)) {
-            return new TimeSeries(wordsData.get(word), MIN_YEAR, MAX_YEAR);
-        } else {
-            return new TimeSeries();
-        }
+        return countHistory(word, MIN_YEAR, MAX_YEAR);
     }
 
     /**
      * Returns a defensive copy of the total number of words recorded per year in all volumes.
      */
     public TimeSeries totalCountHistory() {
-        return new TimeSeries(countData, MIN_YEAR, MAX_YEAR);
+        return data.totals.toTimeSeries();
     }
 
     /**
@@ -108,12 +169,36 @@ public class NGramMap {
      * TimeSeries.
      */
     public TimeSeries weightHistory(String word, int startYear, int endYear) {
-        if (wordsData.containsKey(word)) {
-            TimeSeries count = countHistory(word, startYear, endYear);
-            return count.dividedBy(totalCountHistory());
-        } else {
+        NGramData d = data;
+        int id = d.words.id(word);
+        if (id < 0 || startYear > endYear) {
             return new TimeSeries();
         }
+        double[] weights = d.weights();
+        int from = d.words.lowerBound(id, startYear);
+        int to = d.words.upperBound(id, endYear);
+        d.checkTotals(weights, from, to);
+        return new TimeSeries(d.words.yearColumn(), weights, from, to);
+    }
+
+    /**
+     * Passes the relative frequency of WORD in each year between STARTYEAR and ENDYEAR,
+     * inclusive of both ends, to ACTION in ascending year order. Does nothing if the word is
+     * not in the data files. Unlike weightHistory, no TimeSeries is built.
+     */
+    public void forEachWeight(String word, int startYear, int endYear, YearValueConsumer action) {
+        NGramData d = data;
+        int id = d.words.id(word);
+        if (id < 0 || startYear > endYear) {
+            return;
+        }
+        double[] weights = d.weights();
+        int from = d.words.lowerBound(id, startYear);
+        int to = d.words.upperBound(id, endYear);
+        d.checkTotals(weights, from, to);
+        for (int i = from; i < to; i += 1) {
+            action.accept(d.words.year(i), weights[i]);
+        }
     }
 
     /**
@@ -122,12 +207,73 @@ public class NGramMap {
      * TimeSeries.
      */
     public TimeSeries weightHistory(String word) {
-        if (wordsData.containsKey(word)) {
-            TimeSeries count = countHistory(word);
-            return count.dividedBy(totalCountHistory());
-        } else {
-            return new TimeSeries();
+        return weightHistory(word, MIN_YEAR, MAX_YEAR);
+    }
+
+    /**
+     * Returns a read-only view of the counts of WORD between STARTYEAR and ENDYEAR, inclusive
+     * of both ends, or an empty view if the word is not in the data files. Unlike
+     * countHistory, nothing is copied, so this is the cheaper choice for code that only reads.
+     */
+    public HistoryView countView(String word, int startYear, int endYear) {
+        HistoryStore wordsData = data.words;
+        int id = wordsData.id(word);
+        if (id < 0 || startYear > endYear) {
+            return HistoryView.empty();
+        }
+        return new HistoryView(wordsData.yearColumn(), wordsData.countColumn(),
+                wordsData.lowerBound(id, startYear), wordsData.upperBound(id, endYear));
+    }
+
+    /** Returns a read-only view of all counts of WORD. See countView above. */
+    public HistoryView countView(String word) {
+        return countView(word, MIN_YEAR, MAX_YEAR);
+    }
+
+    /**
+     * Returns a read-only view of the relative frequency of WORD between STARTYEAR and
+     * ENDYEAR, inclusive of both ends, or an empty view if the word is not in the data files.
+     * Throws the same exception as weightHistory if the total counts are missing a year.
+     */
+    public HistoryView weightView(String word, int startYear, int endYear) {
+        NGramData d = data;
+        int id = d.words.id(word);
+        if (id < 0 || startYear > endYear) {
+            return HistoryView.empty();
+        }
+        double[] weights = d.weights();
+        int from = d.words.lowerBound(id, startYear);
+        int to = d.words.upperBound(id, endYear);
+        d.checkTotals(weights, from, to);
+        return new HistoryView(d.words.yearColumn(), weights, from, to);
+    }
+
+    /** Returns a read-only view of the relative frequency of WORD in every year. */
+    public HistoryView weightView(String word) {
+        return weightView(word, MIN_YEAR, MAX_YEAR);
+    }
+
+    /**
+     * Returns weightView(WORD, STARTYEAR, ENDYEAR) for every word in WORDS, in order, all read
+     * from the same version of the data. Every view is checked before any is returned, so a
+     * missing total count year throws before the caller has used any of them.
+     */
+    public List<HistoryView> weightViews(List<String> words, int startYear, int endYear) {
+        NGramData d = data;
+        List<HistoryView> views = new ArrayList<>(words.size());
+        for (String word : words) {
+            int id = d.words.id(word);
+            if (id < 0 || startYear > endYear) {
+                views.add(HistoryView.empty());
+                continue;
+            }
+            double[] weights = d.weights();
+            int from = d.words.lowerBound(id, startYear);
+            int to = d.words.upperBound(id, endYear);
+            d.checkTotals(weights, from, to);
+            views.add(new HistoryView(d.words.yearColumn(), weights, from, to));
         }
+        return views;
     }
 
     /**
@@ -137,12 +283,15 @@ public class NGramMap {
      */
     public TimeSeries summedWeightHistory(Collection<String> words,
                                           int startYear, int endYear) {
-        TimeSeries sum = new TimeSeries();
+        NGramData d = data;
+        DenseTimeSeries sum = new DenseTimeSeries();
         for (String word : words) {
-            TimeSeries item = weightHistory(word, startYear, endYear);
-            sum = sum.plus(item);
+            int id = d.words.id(word);
+            if (id >= 0) {
+                d.addWeights(id, startYear, endYear, sum);
+            }
         }
-        return sum;
+        return sum.toTimeSeries(startYear, endYear);
     }
 
     /**
@@ -150,11 +299,60 @@ public class NGramMap {
      * exist in this time frame, ignore it rather than throwing an exception.
      */
     public TimeSeries summedWeightHistory(Collection<String> words) {
-        TimeSeries sum = new TimeSeries();
-        for (String word : words) {
-            TimeSeries item = weightHistory(word);
-            sum = sum.plus(item);
+        return summedWeightHistory(words, MIN_YEAR, MAX_YEAR);
+    }
+
+    /**
+     * Returns every word in the data files that matches PATTERN, in alphabetical order. In
+     * PATTERN, '*' matches any run of characters and '?' matches any one character, so
+     * "electr*" finds every word starting with "electr". See Lexicon for the cost.
+     */
+    public List<String> wordsMatching(String pattern) {
+        NGramData d = data;
+        int[] ids = d.lexicon().matching(pattern);
+        List<String> words = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            words.add(d.words.word(id));
+        }
+        return words;
+    }
+
+    /**
+     * Provides the summed relative frequency per year, between STARTYEAR and ENDYEAR
+     * inclusive, of every word matching PATTERN. Same as summedWeightHistory of
+     * wordsMatching(PATTERN), without looking each word up again.
+     */
+    public TimeSeries summedWeightHistoryMatching(String pattern, int startYear, int endYear) {
+        NGramData d = data;
+        DenseTimeSeries sum = new DenseTimeSeries();
+        for (int id : d.lexicon().matching(pattern)) {
+            d.addWeights(id, startYear, endYear, sum);
+        }
+        return sum.toTimeSeries(startYear, endYear);
+    }
+
+    /**
+     * Returns the (at most) K words with the largest total relative frequency between
+     * STARTYEAR and ENDYEAR, inclusive of both ends, most popular first. Words that do not
+     * appear in that time frame are never returned. See PopularityIndex for how this avoids
+     * looking at every word.
+     */
+    public List<String> topWords(int k, int startYear, int endYear) {
+        NGramData d = data;
+        List<String> words = new ArrayList<>();
+        for (int id : d.popularity().top(k, startYear, endYear)) {
+            words.add(d.words.word(id));
         }
-        return sum;
+        return words;
+    }
+
+    /**
+     * Returns the total relative frequency of WORD between STARTYEAR and ENDYEAR, inclusive of
+     * both ends, or 0 if the word is not in the data files.
+     */
+    public double totalWeight(String word, int startYear, int endYear) {
+        NGramData d = data;
+        int id = d.words.id(word);
+        return (id < 0) ? 0.0 : d.popularity().totalWeight(id, startYear, endYear);
     }
 }
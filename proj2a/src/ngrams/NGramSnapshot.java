@@ -0,0 +1,184 @@
+package ngrams;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes binary snapshots of the data behind an NGramMap, so that a server can
+ * skip parsing the text files on every start.
+ *
+ * A snapshot is laid out as follows, with every number big-endian:
+ *
+ *   header      magic "NGRM", format version, then the size and modification time of the
+ *               words file and of the counts file it was built from
+ *   lengths     number of words, number of word data points, number of total counts
+ *   dictionary  word W's UTF-8 bytes sit at [byteOffsets[W], byteOffsets[W + 1]) of a
+ *               single byte blob
+ *   columns     the HistoryStore offset, year and count columns, then the total counts
+ *               as a year column and a count column
+ *   checksum    CRC32 of every byte before it
+ *
+ * A snapshot is only used if its version, source file stamps and checksum all match;
+ * otherwise read returns null and the caller should fall back to the text files.
+ */
+class NGramSnapshot {
+
+    private static final int MAGIC = 0x4E47524D;
+    private static final int VERSION = 1;
+
+    /** The word histories held by this snapshot. */
+    final HistoryStore words;
+    /** The total counts held by this snapshot. */
+    final TimeSeries totals;
+
+    NGramSnapshot(HistoryStore words, TimeSeries totals) {
+        this.words = words;
+        this.totals = totals;
+    }
+
+    /**
+     * Writes WORDS and TOTALS, built from WORDSFILENAME and COUNTSFILENAME, to
+     * SNAPSHOTFILENAME. The snapshot is written to a temporary file first and then moved
+     * into place, so a crash never leaves a half-written snapshot behind.
+     */
+    static void write(String snapshotFilename, String wordsFilename, String countsFilename,
+                      HistoryStore words, TimeSeries totals) throws IOException {
+        Path target = Path.of(snapshotFilename);
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "ngrams", ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(temp)) {
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(file, 1 << 16), crc));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeStamp(out, wordsFilename);
+                writeStamp(out, countsFilename);
+
+                WordDictionary dictionary = words.dictionary();
+                out.writeInt(dictionary.size());
+                out.writeInt(words.size());
+                out.writeInt(totals.size());
+
+                for (int byteOffset : dictionary.offsets()) {
+                    out.writeInt(byteOffset);
+                }
+                out.write(dictionary.arena());
+
+                for (int offset : words.offsetColumn()) {
+                    out.writeInt(offset);
+                }
+                for (int year : words.yearColumn()) {
+                    out.writeInt(year);
+                }
+                for (double count : words.countColumn()) {
+                    out.writeDouble(count);
+                }
+                for (int year : totals.keySet()) {
+                    out.writeInt(year);
+                }
+                for (double count : totals.values()) {
+                    out.writeDouble(count);
+                }
+
+                out.flush();
+                new DataOutputStream(file).writeLong(crc.getValue());
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the snapshot stored in SNAPSHOTFILENAME, or null if it is missing, was written
+     * by a different format version, was built from files other than the current
+     * WORDSFILENAME and COUNTSFILENAME, or is corrupt.
+     */
+    static NGramSnapshot read(String snapshotFilename, String wordsFilename,
+                              String countsFilename) {
+        Path path = Path.of(snapshotFilename);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Long.BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION
+                    || !stampMatches(buf, wordsFilename) || !stampMatches(buf, countsFilename)) {
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().position(0).limit((int) size - Long.BYTES));
+            if (crc.getValue() != buf.getLong((int) size - Long.BYTES)) {
+                return null;
+            }
+
+            int wordCount = buf.getInt();
+            int rows = buf.getInt();
+            int totalRows = buf.getInt();
+
+            int[] byteOffsets = readInts(buf, wordCount + 1);
+            byte[] blob = new byte[byteOffsets[wordCount]];
+            buf.get(blob);
+            /* The blob is already the arena of a WordDictionary, so no word is decoded. */
+            WordDictionary dictionary = new WordDictionary(blob, byteOffsets);
+
+            int[] offsets = readInts(buf, wordCount + 1);
+            int[] years = readInts(buf, rows);
+            double[] counts = readDoubles(buf, rows);
+            int[] totalYears = readInts(buf, totalRows);
+            double[] totalCounts = readDoubles(buf, totalRows);
+
+            return new NGramSnapshot(new HistoryStore(dictionary, offsets, years, counts),
+                    new TimeSeries(totalYears, totalCounts, 0, totalRows));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeStamp(DataOutputStream out, String filename) throws IOException {
+        Path path = Path.of(filename);
+        out.writeLong(Files.size(path));
+        out.writeLong(Files.getLastModifiedTime(path).toMillis());
+    }
+
+    private static boolean stampMatches(ByteBuffer buf, String filename) throws IOException {
+        Path path = Path.of(filename);
+        long size = buf.getLong();
+        long modified = buf.getLong();
+        return Files.isRegularFile(path) && size == Files.size(path)
+                && modified == Files.getLastModifiedTime(path).toMillis();
+    }
+
+    private static int[] readInts(ByteBuffer buf, int n) {
+        int[] result = new int[n];
+        buf.asIntBuffer().get(result);
+        buf.position(buf.position() + n * Integer.BYTES);
+        return result;
+    }
+
+    private static double[] readDoubles(ByteBuffer buf, int n) {
+        double[] result = new double[n];
+        buf.asDoubleBuffer().get(result);
+        buf.position(buf.position() + n * Double.BYTES);
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+package ngrams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static ngrams.TimeSeries.MAX_YEAR;
+import static ngrams.TimeSeries.MIN_YEAR;
+
+/**
+ * Answers "which K words have the largest total relative frequency between STARTYEAR and
+ * ENDYEAR" without scoring every word.
+ *
+ * Two structures are built once, from the weight column of a HistoryStore:
+ *
+ *   prefix sums  runningWeight[i] is the total weight of a word from its first data point up
+ *                to and including column index i, so the exact total of any word over any
+ *                year range is two binary searches and a subtraction
+ *   rankings     for every decade, the words with weight in that decade, sorted by their
+ *                total weight in it (rounded up to a float, so it is never too small)
+ *
+ * A query walks the rankings of the decades it touches from the top, always advancing the
+ * decade whose next word has the largest weight, scores each word it meets exactly, and keeps
+ * the best K in a bounded heap. No word that has not been met yet can total more than the sum
+ * of the weights the walk has reached in every decade, so as soon as the K-th best score beats
+ * that sum the answer is final. For popular words this happens after a tiny fraction of the
+ * lexicon has been scored.
+ *
+ * Weights that are NaN because the total counts are missing a year count as zero.
+ */
+public class PopularityIndex {
+
+    private static final int DECADES = (MAX_YEAR - MIN_YEAR) / 10 + 1;
+
+    private final HistoryStore store;
+    private final double[] runningWeight;
+    /**
+     * Ranking of each decade, ascending: the high 32 bits of every entry are the float bits of
+     * the word's weight in that decade and the low 32 bits are the word id.
+     */
+    private final long[][] rankings = new long[DECADES][];
+
+    /** Builds the index over STORE, whose column index I has relative frequency WEIGHTS[I]. */
+    public PopularityIndex(HistoryStore store, double[] weights) {
+        this.store = store;
+        this.runningWeight = new double[weights.length];
+        int[] sizes = new int[DECADES];
+        double[] decadeWeight = new double[DECADES];
+        int[] touchedDecades = new int[DECADES];
+        long[][] entries = new long[DECADES][];
+        for (int d = 0; d < DECADES; d += 1) {
+            entries[d] = new long[16];
+        }
+
+        for (int id = 0; id < store.wordCount(); id += 1) {
+            double running = 0.0;
+            int touched = 0;
+            for (int i = store.start(id); i < store.end(id); i += 1) {
+                double weight = Double.isNaN(weights[i]) ? 0.0 : weights[i];
+                running += weight;
+                runningWeight[i] = running;
+                int d = decade(store.year(i));
+                if (weight > 0.0) {
+                    if (decadeWeight[d] == 0.0) {
+                        touchedDecades[touched] = d;
+                        touched += 1;
+                    }
+                    decadeWeight[d] += weight;
+                }
+            }
+            for (int t = 0; t < touched; t += 1) {
+                int d = touchedDecades[t];
+                if (sizes[d] == entries[d].length) {
+                    entries[d] = Arrays.copyOf(entries[d], sizes[d] * 2);
+                }
+                long bits = Float.floatToIntBits(roundUp(decadeWeight[d]));
+                entries[d][sizes[d]] = (bits << 32) | id;
+                sizes[d] += 1;
+                decadeWeight[d] = 0.0;
+            }
+        }
+
+        for (int d = 0; d < DECADES; d += 1) {
+            rankings[d] = Arrays.copyOf(entries[d], sizes[d]);
+            /* Non-negative floats order the same way as their bits. */
+            Arrays.sort(rankings[d]);
+        }
+    }
+
+    /** Returns the smallest float that is at least VALUE. */
+    private static float roundUp(double value) {
+        float f = (float) value;
+        return (f < value) ? Math.nextUp(f) : f;
+    }
+
+    private static int decade(int year) {
+        return (Math.max(MIN_YEAR, Math.min(MAX_YEAR, year)) - MIN_YEAR) / 10;
+    }
+
+    /**
+     * Returns the total relative frequency of word ID between STARTYEAR and ENDYEAR,
+     * inclusive of both ends.
+     */
+    public double totalWeight(int id, int startYear, int endYear) {
+        if (startYear > endYear) {
+            return 0.0;
+        }
+        int from = store.lowerBound(id, startYear);
+        int to = store.upperBound(id, endYear);
+        if (from == to) {
+            return 0.0;
+        }
+        double before = (from == store.start(id)) ? 0.0 : runningWeight[from - 1];
+        return runningWeight[to - 1] - before;
+    }
+
+    /**
+     * Returns the ids of the (at most) K words with the largest total relative frequency
+     * between STARTYEAR and ENDYEAR, largest first, breaking ties by word. Words with no
+     * weight in that range are never returned.
+     */
+    public List<Integer> top(int k, int startYear, int endYear) {
+        if (k <= 0 || startYear > endYear) {
+            return List.of();
+        }
+        int first = decade(startYear);
+        int last = decade(endYear);
+        int[] cursor = new int[last - first + 1];
+        for (int d = first; d <= last; d += 1) {
+            cursor[d - first] = rankings[d].length - 1;
+        }
+
+        Comparator<Scored> worstFirst = Comparator.<Scored>comparingDouble(s -> s.score)
+                .thenComparing((a, b) -> store.dictionary().compare(b.id, a.id));
+        PriorityQueue<Scored> best = new PriorityQueue<>(k + 1, worstFirst);
+        BitSet seen = new BitSet(store.wordCount());
+
+        while (true) {
+            /* The next entry to take is the largest one under any cursor, and no word that
+             * has not been met can total more than the sum of the entries under the cursors. */
+            int pick = -1;
+            double pickValue = 0.0;
+            double threshold = 0.0;
+            for (int d = first; d <= last; d += 1) {
+                double value = valueAt(d, cursor[d - first]);
+                threshold += value;
+                if (value > pickValue) {
+                    pick = d;
+                    pickValue = value;
+                }
+            }
+            if (pick < 0 || (best.size() == k && best.peek().score > threshold)) {
+                break;
+            }
+
+            int id = (int) rankings[pick][cursor[pick - first]];
+            cursor[pick - first] -= 1;
+            if (seen.get(id)) {
+                continue;
+            }
+            seen.set(id);
+            double score = totalWeight(id, startYear, endYear);
+            if (score > 0.0) {
+                best.add(new Scored(id, score));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(worstFirst.reversed());
+        List<Integer> ids = new ArrayList<>(ranked.size());
+        for (Scored s : ranked) {
+            ids.add(s.id);
+        }
+        return ids;
+    }
+
+    /** A word id with its total weight over the queried years. */
+    private record Scored(int id, double score) {
+    }
+
+    /** Returns the weight of entry POSITION of the ranking of decade D, or 0 past its end. */
+    private double valueAt(int d, int position) {
+        return (position < 0) ? 0.0 : Float.intBitsToFloat((int) (rankings[d][position] >>> 32));
+    }
+}
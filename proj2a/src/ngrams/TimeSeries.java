@@ -38,6 +38,16 @@ public class TimeSeries extends TreeMap<Integer, Double> {
         }
     }
 
+    /**
+     * Creates a TimeSeries from the column slices YEARS[FROM, TO) and DATA[FROM, TO).
+     */
+    TimeSeries(int[] years, double[] data, int from, int to) {
+        super();
+        for (int i = from; i < to; i += 1) {
+            this.put(years[i], data[i]);
+        }
+    }
+
     /**
      *  Returns all years for this time series in ascending order.
      */
@@ -0,0 +1,315 @@
+package ngrams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps every word of an NGrams data set to a dense int id, 0 to size() - 1, and back.
+ *
+ * All words are stored back to back as UTF-8 in one byte arena; word W occupies
+ * arena[offsets[W], offsets[W + 1]). Lookups go through an open-addressing table of ids with
+ * linear probing, kept at most half full, and compare the query against the arena directly.
+ * Compared with a HashMap from String to Integer this needs no object per word at all, only
+ * the word's bytes plus about 16 bytes, and a lookup touches a few adjacent ints instead of
+ * chasing pointers through entries, boxed ids and string objects.
+ *
+ * Words are ordered by compare, which is the unsigned order of their UTF-8 bytes and so the
+ * order of their code points.
+ */
+public final class WordDictionary {
+    private static final int FNV_OFFSET = 0x811c9dc5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final byte[] arena;
+    private final int[] offsets;
+    private final int[] hashes;
+    /** Open-addressing table of ids, -1 where empty. Its length is a power of two. */
+    private final int[] table;
+
+    /**
+     * Creates a dictionary over words already laid out in ARENA, with word W at
+     * ARENA[OFFSETS[W], OFFSETS[W + 1]). The words must be distinct and valid UTF-8.
+     */
+    WordDictionary(byte[] arena, int[] offsets) {
+        this.arena = arena;
+        this.offsets = offsets;
+        int size = offsets.length - 1;
+        this.hashes = new int[size];
+        this.table = new int[tableSize(size)];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id += 1) {
+            int hash = hash(arena, offsets[id], offsets[id + 1]);
+            hashes[id] = hash;
+            int slot = hash & mask;
+            while (table[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+    }
+
+    /** Returns the smallest power of two that keeps SIZE ids at most half of the table. */
+    private static int tableSize(int size) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1);
+    }
+
+    /** Returns the FNV-1a hash of BYTES[FROM, TO). */
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = FNV_OFFSET;
+        for (int i = from; i < to; i += 1) {
+            hash = (hash ^ bytes[i]) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /** Returns the number of words. */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /** Returns the id of WORD, or -1 if WORD is not in this dictionary. */
+    public int id(String word) {
+        /* Nearly every word is ASCII, whose chars are its UTF-8 bytes, so those are hashed
+         * and compared without encoding them first. */
+        int length = word.length();
+        int hash = FNV_OFFSET;
+        for (int i = 0; i < length; i += 1) {
+            char c = word.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                return id(bytes, 0, bytes.length);
+            }
+            hash = (hash ^ (byte) c) * FNV_PRIME;
+        }
+
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != -1; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (hashes[id] == hash && offsets[id + 1] - offsets[id] == length
+                    && sameAscii(offsets[id], word)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private boolean sameAscii(int start, String word) {
+        for (int i = 0; i < word.length(); i += 1) {
+            if (arena[start + i] != (byte) word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the id of the word whose UTF-8 bytes are BYTES[FROM, TO), or -1. */
+    public int id(byte[] bytes, int from, int to) {
+        int hash = hash(bytes, from, to);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != -1; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (hashes[id] == hash && Arrays.equals(arena, offsets[id], offsets[id + 1],
+                    bytes, from, to)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the id of the word with id OTHERID in OTHER, or -1 if this dictionary does not
+     * have that word.
+     */
+    public int id(WordDictionary other, int otherId) {
+        return id(other.arena, other.offsets[otherId], other.offsets[otherId + 1]);
+    }
+
+    /** Returns the word with the given ID. */
+    public String word(int id) {
+        return new String(arena, offsets[id], offsets[id + 1] - offsets[id],
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the words with ids A and B by the unsigned values of their UTF-8 bytes, which
+     * orders them by code point.
+     */
+    public int compare(int a, int b) {
+        return Arrays.compareUnsigned(arena, offsets[a], offsets[a + 1],
+                arena, offsets[b], offsets[b + 1]);
+    }
+
+    /** Compares the word with the given ID to the UTF-8 bytes KEY, as compare does. */
+    public int compare(int id, byte[] key) {
+        return Arrays.compareUnsigned(arena, offsets[id], offsets[id + 1], key, 0, key.length);
+    }
+
+    /**
+     * Compares the words with ids A and B read backwards, byte by byte, so that words sharing
+     * a suffix sort next to each other.
+     */
+    public int compareReversed(int a, int b) {
+        int i = offsets[a + 1] - 1;
+        int j = offsets[b + 1] - 1;
+        while (i >= offsets[a] && j >= offsets[b]) {
+            int diff = Byte.toUnsignedInt(arena[i]) - Byte.toUnsignedInt(arena[j]);
+            if (diff != 0) {
+                return diff;
+            }
+            i -= 1;
+            j -= 1;
+        }
+        return (i - offsets[a]) - (j - offsets[b]);
+    }
+
+    /**
+     * Compares the word with the given ID read backwards to the bytes REVERSEDKEY, which are
+     * already reversed, as compareReversed does.
+     */
+    public int compareReversed(int id, byte[] reversedKey) {
+        int i = offsets[id + 1] - 1;
+        int j = 0;
+        while (i >= offsets[id] && j < reversedKey.length) {
+            int diff = Byte.toUnsignedInt(arena[i]) - Byte.toUnsignedInt(reversedKey[j]);
+            if (diff != 0) {
+                return diff;
+            }
+            i -= 1;
+            j += 1;
+        }
+        return (i - offsets[id] + 1) - (reversedKey.length - j);
+    }
+
+    /** Returns whether the word with the given ID starts with the UTF-8 bytes PREFIX. */
+    public boolean startsWith(int id, byte[] prefix) {
+        int start = offsets[id];
+        return offsets[id + 1] - start >= prefix.length
+                && Arrays.equals(arena, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Returns whether the word with the given ID ends with the UTF-8 bytes REVERSEDSUFFIX,
+     * which are given in reverse order.
+     */
+    public boolean endsWithReversed(int id, byte[] reversedSuffix) {
+        int end = offsets[id + 1];
+        if (end - offsets[id] < reversedSuffix.length) {
+            return false;
+        }
+        for (int j = 0; j < reversedSuffix.length; j += 1) {
+            if (arena[end - 1 - j] != reversedSuffix[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the byte arena. Must not be modified. */
+    byte[] arena() {
+        return arena;
+    }
+
+    /** Returns the arena offsets of every word, plus the end of the last. Must not be modified. */
+    int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Assigns ids to words in the order they are first interned. A builder can start from an
+     * existing dictionary, whose words keep their ids.
+     */
+    public static class Builder {
+        private byte[] arena;
+        private int[] offsets;
+        private int size;
+        private int[] hashes;
+        private int[] table;
+
+        /** Creates an empty builder. */
+        public Builder() {
+            arena = new byte[1 << 12];
+            offsets = new int[1 << 10];
+            hashes = new int[1 << 10];
+            table = new int[tableSize(1 << 10)];
+            Arrays.fill(table, -1);
+        }
+
+        /** Creates a builder holding every word of BASE, with the same ids. */
+        public Builder(WordDictionary base) {
+            arena = Arrays.copyOf(base.arena, Math.max(16, base.arena.length * 2));
+            offsets = Arrays.copyOf(base.offsets, Math.max(16, base.offsets.length * 2));
+            hashes = Arrays.copyOf(base.hashes, offsets.length);
+            size = base.size();
+            table = Arrays.copyOf(base.table, base.table.length);
+        }
+
+        /** Returns the number of words interned so far. */
+        public int size() {
+            return size;
+        }
+
+        /** Returns the id of WORD, assigning the next free id if WORD is new. */
+        public int intern(String word) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            return intern(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Returns the id of the word whose UTF-8 bytes are BYTES[FROM, TO), assigning the next
+         * free id if the word is new.
+         */
+        int intern(byte[] bytes, int from, int to) {
+            int length = to - from;
+            int hash = hash(bytes, from, to);
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            while (table[slot] != -1) {
+                int id = table[slot];
+                if (hashes[id] == hash && Arrays.equals(arena, offsets[id], offsets[id + 1],
+                        bytes, from, to)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = size;
+            if (id + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                hashes = Arrays.copyOf(hashes, offsets.length);
+            }
+            int start = offsets[id];
+            if (start + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + length));
+            }
+            System.arraycopy(bytes, from, arena, start, length);
+            offsets[id + 1] = start + length;
+            hashes[id] = hash;
+            table[slot] = id;
+            size += 1;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            Arrays.fill(table, -1);
+            int mask = table.length - 1;
+            for (int id = 0; id < size; id += 1) {
+                int slot = hashes[id] & mask;
+                while (table[slot] != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id;
+            }
+        }
+
+        /** Returns a dictionary of every word interned so far. */
+        public WordDictionary build() {
+            return new WordDictionary(Arrays.copyOf(arena, offsets[size]),
+                    Arrays.copyOf(offsets, size + 1));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ngrams;
+
+/**
+ * Receives the (year, value) pairs of a history one at a time, in ascending year order,
+ * without a TimeSeries being built for them.
+ */
+@FunctionalInterface
+public interface YearValueConsumer {
+    void accept(int year, double value);
+}
@@ -0,0 +1,146 @@
+package plotting;
+
+import org.knowm.xchart.XYChart;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders charts to Base64-encoded PNGs on a dedicated, bounded pool of threads, so that
+ * CPU-heavy rendering cannot tie up the web server's request threads.
+ *
+ * Each rendering thread keeps its own image buffer, PNG writer and output buffer and reuses
+ * them for every chart of the same size, instead of allocating an 800x600 image per request.
+ * At most CONCURRENCY charts render at once; a limited number more may wait in the queue, and
+ * beyond that submissions are rejected straight away. Both a full queue and a chart that
+ * does not render in time are reported as a RejectedExecutionException, which the web
+ * server answers with 503, so an overloaded renderer turns chart requests away instead of
+ * holding request threads that other queries need.
+ */
+public class ChartRenderer {
+
+    /** How many waiting charts are allowed per rendering thread. */
+    private static final int QUEUE_PER_THREAD = 16;
+
+    private static ChartRenderer defaultRenderer;
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * Creates a renderer that renders at most CONCURRENCY charts at once and gives up on a
+     * chart that is not done TIMEOUTMILLIS milliseconds after it was submitted.
+     */
+    public ChartRenderer(int concurrency, long timeoutMillis) {
+        if (concurrency <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Concurrency and timeout must be positive");
+        }
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(concurrency * QUEUE_PER_THREAD), r -> {
+                    Thread t = new Thread(r, "chart-renderer-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Returns a renderer shared by everything that does not configure its own, using half of
+     * the available processors and a ten second timeout.
+     */
+    public static synchronized ChartRenderer defaultRenderer() {
+        if (defaultRenderer == null) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            defaultRenderer = new ChartRenderer(Math.max(1, processors / 2), 10_000);
+        }
+        return defaultRenderer;
+    }
+
+    /**
+     * Queues CHART for rendering and returns a Future holding its Base64-encoded PNG. Throws a
+     * RejectedExecutionException if the queue is full.
+     */
+    public Future<String> submit(XYChart chart) {
+        return executor.submit(() -> buffers.get().encode(chart));
+    }
+
+    /**
+     * Renders CHART on this renderer's threads and returns its Base64-encoded PNG, waiting at
+     * most the configured timeout. Throws a RejectedExecutionException if the renderer is too
+     * busy, that is if the queue is full or the chart is not rendered in time, and an
+     * IllegalStateException if rendering fails.
+     */
+    public String render(XYChart chart) {
+        Future<String> result = submit(chart);
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            RejectedExecutionException busy = new RejectedExecutionException(
+                    "Chart rendering timed out after " + timeoutMillis + " ms");
+            busy.initCause(e);
+            throw busy;
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a chart", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Chart rendering failed", e.getCause());
+        }
+    }
+
+    /** Stops accepting charts. Charts that are already queued still render. */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /** The image, PNG writer and output buffer owned by one rendering thread. */
+    private static class Buffers {
+        private final ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        private BufferedImage image;
+
+        String encode(XYChart chart) {
+            int width = chart.getWidth();
+            int height = chart.getHeight();
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            Graphics2D g = image.createGraphics();
+            try {
+                chart.paint(g, width, height);
+            } finally {
+                g.dispose();
+            }
+
+            bytes.reset();
+            try (ImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+                writer.setOutput(out);
+                writer.write(image);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                writer.reset();
+            }
+            return Base64.getEncoder().encodeToString(bytes.toByteArray());
+        }
+    }
+}
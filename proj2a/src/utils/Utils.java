@@ -11,5 +11,8 @@ public class Utils {
     public static final String SHORT_WORDS_FILE = PREFIX + "very_short.csv";
     public static final String TOTAL_COUNTS_FILE = PREFIX + "total_counts.csv";
     public static final String SHORTER_WORDS_FILE = PREFIX + "less_short.csv";
+    /** Rows appended to this file are merged into the running server's NGramMap. */
+    public static final String DELTA_FILE = PREFIX + "delta.csv";
+    public static final String TOP_49887_SNAPSHOT_FILE = PREFIX + "top_49887_words.ngrams";
 }
 
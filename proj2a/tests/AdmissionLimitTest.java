@@ -0,0 +1,58 @@
+import browser.AdmissionLimit;
+
+import org.junit.jupiter.api.Test;
+import spark.HaltException;
+import spark.Response;
+import spark.Route;
+
+import java.util.concurrent.CountDownLatch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the AdmissionLimit class. */
+public class AdmissionLimitTest {
+    /** A Response that ignores headers, since there is no servlet behind it. */
+    private static Response response() {
+        return new Response() {
+            @Override
+            public void header(String header, String value) {
+            }
+        };
+    }
+
+    @Test
+    public void testRejectsBeyondLimit() throws Exception {
+        AdmissionLimit limit = new AdmissionLimit(1, 0);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Route blocking = limit.wrap((request, response) -> {
+            entered.countDown();
+            release.await();
+            return "done";
+        });
+
+        Thread first = new Thread(() -> {
+            try {
+                blocking.handle(null, response());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        first.start();
+        entered.await();
+        assertThat(limit.inFlight()).isEqualTo(1);
+
+        try {
+            limit.wrap((request, response) -> "second").handle(null, response());
+            throw new AssertionError("Expected the second request to be turned away");
+        } catch (HaltException e) {
+            assertThat(limit.rejected()).isEqualTo(1L);
+        }
+
+        release.countDown();
+        first.join();
+        assertThat(limit.inFlight()).isEqualTo(0);
+        assertThat(limit.wrap((request, response) -> "third").handle(null, response()))
+                .isEqualTo("third");
+    }
+}
@@ -0,0 +1,147 @@
+import browser.BatchQueryHandler;
+import browser.NgordnetQuery;
+import browser.NgordnetQueryHandler;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import main.HistoryTextHandler;
+import main.TopWordsHandler;
+import ngrams.NGramDelta;
+import ngrams.NGramMap;
+
+import org.junit.jupiter.api.Test;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the BatchQueryHandler class. */
+public class BatchQueryHandlerTest {
+    private static final Gson gson = new Gson();
+
+    @Test
+    public void testMixedRoutesAnswerInOrder() throws Exception {
+        Path dir = Files.createTempDirectory("batch");
+        try {
+            NGramMap ngm = newMap(dir);
+            BatchQueryHandler batch = new BatchQueryHandler(Map.of(
+                    "historytext", new HistoryTextHandler(ngm),
+                    "topwords", new TopWordsHandler(ngm)));
+            JsonArray results = post(batch, """
+                    [{"route": "topwords", "k": 1, "startYear": 2000, "endYear": 2000},
+                     {"route": "historytext", "words": ["cat"], "startYear": 2000},
+                     {"route": "nope", "words": ["cat"]},
+                     null,
+                     {"words": ["cat"]}]
+                    """);
+            assertThat(results.size()).isEqualTo(5);
+            assertThat(results.get(0).getAsString()).isEqualTo("dog: 0.3\n");
+            assertThat(results.get(1).getAsString()).isEqualTo("cat: {2000=0.1}\n");
+            assertThat(error(results.get(2))).isEqualTo("Unknown route: nope");
+            assertThat(error(results.get(3))).isEqualTo("Query must be a JSON object");
+            assertThat(error(results.get(4))).isEqualTo("Unknown route: null");
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testEmptyAndMalformedBodies() throws Exception {
+        BatchQueryHandler batch = new BatchQueryHandler(Map.of());
+        assertThat(post(batch, "[]").size()).isEqualTo(0);
+        assertThat(post(batch, "").size()).isEqualTo(0);
+
+        int[] status = {200};
+        Response response = new Response() {
+            @Override
+            public void status(int statusCode) {
+                status[0] = statusCode;
+            }
+
+            @Override
+            public void type(String contentType) {
+            }
+        };
+        String body = batch.handle(request("[{\"route\": "), response);
+        assertThat(status[0]).isEqualTo(400);
+        assertThat(error(gson.fromJson(body, JsonElement.class))
+                .startsWith("Request body must be a JSON array of queries")).isTrue();
+    }
+
+    @Test
+    public void testRouteIsAnsweredFromOneVersion() throws Exception {
+        Path dir = Files.createTempDirectory("batch");
+        try {
+            NGramMap ngm = newMap(dir);
+            /* A route that merges a new count of cat while the batch is being answered. */
+            NgordnetQueryHandler merge = new NgordnetQueryHandler() {
+                @Override
+                public String handle(NgordnetQuery q) {
+                    NGramDelta delta = new NGramDelta();
+                    delta.addWord("cat", 2000, 500);
+                    ngm.append(delta);
+                    return "merged";
+                }
+            };
+            BatchQueryHandler batch = new BatchQueryHandler(Map.of(
+                    "historytext", new HistoryTextHandler(ngm), "merge", merge));
+            JsonArray results = post(batch, """
+                    [{"route": "historytext", "words": ["cat"], "startYear": 2000},
+                     {"route": "merge"},
+                     {"route": "historytext", "words": ["cat"], "startYear": 2000}]
+                    """);
+            assertThat(results.get(1).getAsString()).isEqualTo("merged");
+            assertThat(results.get(2)).isEqualTo(results.get(0));
+
+            results = post(batch, """
+                    [{"route": "historytext", "words": ["cat"], "startYear": 2000}]
+                    """);
+            assertThat(results.get(0).getAsString()).isEqualTo("cat: {2000=0.5}\n");
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /** Returns an NGramMap in which cat and dog have weights 0.1 and 0.3 in 2000. */
+    private static NGramMap newMap(Path dir) throws IOException {
+        Path words = Files.writeString(dir.resolve("words.csv"),
+                "cat\t2000\t100\t1\ndog\t2000\t300\t1\n");
+        Path counts = Files.writeString(dir.resolve("counts.csv"), "2000,1000,1,1\n");
+        return new NGramMap(words.toString(), counts.toString());
+    }
+
+    private static void delete(Path dir) throws IOException {
+        Files.deleteIfExists(dir.resolve("words.csv"));
+        Files.deleteIfExists(dir.resolve("counts.csv"));
+        Files.delete(dir);
+    }
+
+    /** Posts BODY to BATCH and returns the parsed response array. */
+    private static JsonArray post(BatchQueryHandler batch, String body) throws Exception {
+        Response response = new Response() {
+            @Override
+            public void type(String contentType) {
+            }
+        };
+        return gson.fromJson(batch.handle(request(body), response), JsonArray.class);
+    }
+
+    private static Request request(String body) {
+        return new Request() {
+            @Override
+            public String body() {
+                return body;
+            }
+        };
+    }
+
+    /** Returns the message of the {"error": "..."} object RESULT. */
+    private static String error(JsonElement result) {
+        return result.getAsJsonObject().get("error").getAsString();
+    }
+}
@@ -0,0 +1,72 @@
+import browser.CachingQueryHandler;
+import browser.QueryCache;
+import main.HistoryTextHandler;
+import ngrams.NGramDelta;
+import ngrams.NGramMap;
+
+import org.junit.jupiter.api.Test;
+import spark.QueryParamsMap;
+import spark.Request;
+import spark.Response;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the CachingQueryHandler class. */
+public class CachingQueryHandlerTest {
+
+    @Test
+    public void testAppendInvalidatesCachedResponse() throws Exception {
+        Path dir = Files.createTempDirectory("caching");
+        try {
+            Path words = Files.writeString(dir.resolve("words.csv"), "cat\t2000\t100\t1\n");
+            Path counts = Files.writeString(dir.resolve("counts.csv"), "2000,1000,1,1\n");
+            NGramMap ngm = new NGramMap(words.toString(), counts.toString());
+            QueryCache cache = new QueryCache(10, 1 << 20);
+            CachingQueryHandler handler = new CachingQueryHandler(
+                    new HistoryTextHandler(ngm), cache, ngm::epoch);
+            Response response = new Response() { };
+
+            String before = handler.handle(query("cat"), response);
+            assertThat(before.contains("0.1")).isTrue();
+            assertThat(handler.handle(query("cat"), response)).isEqualTo(before);
+            assertThat(cache.hits()).isEqualTo(1L);
+
+            NGramDelta delta = new NGramDelta();
+            delta.addWord("cat", 2000, 500);
+            ngm.append(delta);
+
+            String after = handler.handle(query("cat"), response);
+            assertThat(after.contains("0.5")).isTrue();
+            assertThat(cache.hits()).isEqualTo(1L);
+            assertThat(handler.handle(query("cat"), response)).isEqualTo(after);
+        } finally {
+            Files.deleteIfExists(dir.resolve("words.csv"));
+            Files.deleteIfExists(dir.resolve("counts.csv"));
+            Files.delete(dir);
+        }
+    }
+
+    /** Returns a Request for WORDS, with every other parameter left to its default. */
+    private static Request query(String words) {
+        return new Request() {
+            @Override
+            public QueryParamsMap queryMap() {
+                return new QueryParamsMap() {
+                    @Override
+                    public QueryParamsMap get(String... keys) {
+                        String value = keys[0].equals("words") ? words : null;
+                        return new QueryParamsMap() {
+                            @Override
+                            public String value() {
+                                return value;
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+import main.HistoryHandler;
+import ngrams.NGramMap;
+import org.knowm.xchart.XYChart;
+import plotting.ChartRenderer;
+
+import org.junit.jupiter.api.Test;
+import spark.HaltException;
+import spark.QueryParamsMap;
+import spark.Request;
+import spark.Response;
+
+import java.awt.Graphics2D;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static utils.Utils.*;
+
+/** Unit Tests for how a ChartRenderer and the history route behave under overload. */
+public class ChartRendererTest {
+
+    /** A chart that does not finish painting until RELEASE is counted down. */
+    private static class BlockingChart extends XYChart {
+        private final CountDownLatch release;
+
+        BlockingChart(CountDownLatch release) {
+            super(8, 8);
+            this.release = release;
+        }
+
+        @Override
+        public int getWidth() {
+            return 8;
+        }
+
+        @Override
+        public int getHeight() {
+            return 8;
+        }
+
+        @Override
+        public void paint(Graphics2D g, int width, int height) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Occupies the only thread of RENDERER and then every place in its queue. */
+    private static void saturate(ChartRenderer renderer, CountDownLatch release) {
+        try {
+            while (true) {
+                renderer.submit(new BlockingChart(release));
+            }
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+    }
+
+    @Test
+    public void testFullQueueIsRejected() {
+        ChartRenderer renderer = new ChartRenderer(1, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            saturate(renderer, release);
+            try {
+                renderer.render(new BlockingChart(release));
+                throw new AssertionError("Expected the chart to be rejected");
+            } catch (RejectedExecutionException e) {
+                assertThat(e.getMessage()).isNotNull();
+            }
+        } finally {
+            release.countDown();
+            renderer.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimeoutIsRejected() {
+        ChartRenderer renderer = new ChartRenderer(1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            renderer.render(new BlockingChart(release));
+            throw new AssertionError("Expected the chart to time out");
+        } catch (RejectedExecutionException e) {
+            assertThat(e.getMessage().contains("timed out")).isTrue();
+        } finally {
+            release.countDown();
+            renderer.shutdown();
+        }
+    }
+
+    @Test
+    public void testOverloadedHistoryRouteAnswers503() throws Exception {
+        ChartRenderer renderer = new ChartRenderer(1, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        HistoryHandler handler = new HistoryHandler(
+                new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE), renderer);
+        Map<String, String> headers = new HashMap<>();
+        Response response = new Response() {
+            @Override
+            public void header(String header, String value) {
+                headers.put(header, value);
+            }
+        };
+        try {
+            saturate(renderer, release);
+            try {
+                handler.handle(emptyRequest(), response);
+                throw new AssertionError("Expected the request to be turned away");
+            } catch (HaltException e) {
+                assertThat(headers.get("Retry-After")).isEqualTo("1");
+            }
+        } finally {
+            release.countDown();
+            renderer.shutdown();
+        }
+    }
+
+    /** Returns a Request without any query parameters, so every default applies. */
+    private static Request emptyRequest() {
+        QueryParamsMap params = new QueryParamsMap() {
+            @Override
+            public QueryParamsMap get(String... keys) {
+                return this;
+            }
+
+            @Override
+            public String value() {
+                return null;
+            }
+        };
+        return new Request() {
+            @Override
+            public QueryParamsMap queryMap() {
+                return params;
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+import ngrams.DeltaWatcher;
+import ngrams.NGramMap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for DeltaWatcher.poll. */
+public class DeltaWatcherTest {
+
+    @Test
+    public void testPartialLineWaitsForItsNewline() throws IOException {
+        Path dir = Files.createTempDirectory("delta");
+        try {
+            NGramMap ngm = newMap(dir);
+            Path delta = dir.resolve("delta.csv");
+            DeltaWatcher watcher = new DeltaWatcher(ngm, delta.toString());
+            assertThat(watcher.poll()).isEqualTo(0);
+
+            Files.writeString(delta, "cat\t2000\t500\t1\ndog\t20");
+            assertThat(watcher.poll()).isEqualTo(1);
+            assertThat(count(ngm, "cat")).isEqualTo(500.0);
+            assertThat(ngm.countHistory("dog").isEmpty()).isTrue();
+            assertThat(watcher.poll()).isEqualTo(0);
+
+            append(delta, "00\t7\t1\n");
+            assertThat(watcher.poll()).isEqualTo(1);
+            assertThat(count(ngm, "dog")).isEqualTo(7.0);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testShrunkFileIsReread() throws IOException {
+        Path dir = Files.createTempDirectory("delta");
+        try {
+            NGramMap ngm = newMap(dir);
+            Path delta = dir.resolve("delta.csv");
+            DeltaWatcher watcher = new DeltaWatcher(ngm, delta.toString());
+            Files.writeString(delta, "cat\t2000\t500\t1\ndog\t2000\t7\t1\n");
+            assertThat(watcher.poll()).isEqualTo(2);
+
+            Files.writeString(delta, "cat\t2000\t9\t1\n");
+            assertThat(watcher.poll()).isEqualTo(1);
+            assertThat(count(ngm, "cat")).isEqualTo(9.0);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testRewrittenFileOfSameSizeIsReread() throws IOException {
+        Path dir = Files.createTempDirectory("delta");
+        try {
+            NGramMap ngm = newMap(dir);
+            Path delta = dir.resolve("delta.csv");
+            DeltaWatcher watcher = new DeltaWatcher(ngm, delta.toString());
+            Files.writeString(delta, "cat\t2000\t500\t1\n");
+            assertThat(watcher.poll()).isEqualTo(1);
+
+            Files.writeString(delta, "cat\t2000\t600\t1\n");
+            assertThat(watcher.poll()).isEqualTo(1);
+            assertThat(count(ngm, "cat")).isEqualTo(600.0);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testLargerReplacementIsReadFromTheStart() throws IOException {
+        Path dir = Files.createTempDirectory("delta");
+        try {
+            NGramMap ngm = newMap(dir);
+            Path delta = dir.resolve("delta.csv");
+            DeltaWatcher watcher = new DeltaWatcher(ngm, delta.toString());
+            Files.writeString(delta, "cat\t2000\t500\t1\n");
+            assertThat(watcher.poll()).isEqualTo(1);
+
+            Path replacement = dir.resolve("delta.csv.new");
+            Files.writeString(replacement, "cat\t2000\t700\t1\ndog\t2000\t7\t1\n");
+            Files.move(replacement, delta, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            assertThat(watcher.poll()).isEqualTo(2);
+            assertThat(count(ngm, "cat")).isEqualTo(700.0);
+            assertThat(count(ngm, "dog")).isEqualTo(7.0);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testMalformedLinesAreSkipped() throws IOException {
+        Path dir = Files.createTempDirectory("delta");
+        try {
+            NGramMap ngm = newMap(dir);
+            Path delta = dir.resolve("delta.csv");
+            DeltaWatcher watcher = new DeltaWatcher(ngm, delta.toString());
+            Files.writeString(delta, "cat\tlots\t1\t1\ncat\t2000\t500\t1\nnonsense\n2000,2000,1,1\n");
+            assertThat(watcher.poll()).isEqualTo(2);
+            assertThat(count(ngm, "cat")).isEqualTo(500.0);
+            assertThat(ngm.totalCountHistory().get(2000)).isEqualTo(2000.0);
+
+            /* The malformed lines were consumed along with the good ones. */
+            assertThat(watcher.poll()).isEqualTo(0);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /** Returns an NGramMap of one word, "cat", over files written to DIR. */
+    private static NGramMap newMap(Path dir) throws IOException {
+        Path words = Files.writeString(dir.resolve("words.csv"), "cat\t2000\t100\t1\n");
+        Path counts = Files.writeString(dir.resolve("counts.csv"), "2000,1000,1,1\n");
+        return new NGramMap(words.toString(), counts.toString());
+    }
+
+    /** Returns the count of WORD in 2000 in NGM. */
+    private static double count(NGramMap ngm, String word) {
+        return ngm.countHistory(word).get(2000);
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardOpenOption.APPEND);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import ngrams.DenseTimeSeries;
+import ngrams.TimeSeries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the DenseTimeSeries class. */
+public class DenseTimeSeriesTest {
+    @Test
+    public void testPlusMatchesTimeSeries() {
+        TimeSeries catPopulation = new TimeSeries();
+        catPopulation.put(1991, 0.0);
+        catPopulation.put(1992, 100.0);
+        catPopulation.put(1994, 200.0);
+
+        TimeSeries dogPopulation = new TimeSeries();
+        dogPopulation.put(1994, 400.0);
+        dogPopulation.put(1995, 500.0);
+
+        DenseTimeSeries total = new DenseTimeSeries(catPopulation);
+        total.plusInPlace(new DenseTimeSeries(dogPopulation));
+
+        assertThat(total.toTimeSeries()).isEqualTo(catPopulation.plus(dogPopulation));
+        assertThat(total.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void testDividedByAndScale() {
+        TimeSeries counts = new TimeSeries();
+        counts.put(2000, 10.0);
+        counts.put(2001, 30.0);
+        TimeSeries totals = new TimeSeries();
+        totals.put(2000, 100.0);
+        totals.put(2001, 0.0);
+        totals.put(2002, 50.0);
+
+        DenseTimeSeries quotient = new DenseTimeSeries();
+        new DenseTimeSeries(counts).dividedByInto(new DenseTimeSeries(totals), quotient);
+        assertThat(quotient.toTimeSeries()).isEqualTo(counts.dividedBy(totals));
+
+        quotient.scaleInPlace(2.0);
+        assertThat(quotient.toTimeSeries(2000, 2000).data()).isEqualTo(List.of(0.2));
+        assertThat(quotient.contains(2002)).isFalse();
+    }
+
+    @Test
+    public void testDividedByMissingYear() {
+        DenseTimeSeries counts = new DenseTimeSeries();
+        counts.put(1500, 1.0);
+        try {
+            counts.dividedByInPlace(new DenseTimeSeries());
+            throw new AssertionError("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertThat(counts.contains(1500)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+import ngrams.HistoryStore;
+import ngrams.TimeSeries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the HistoryStore class. */
+public class HistoryStoreTest {
+    @Test
+    public void testUnsortedAndDuplicateRows() {
+        HistoryStore.Builder builder = new HistoryStore.Builder();
+        builder.add("cat", 2001, 5.0);
+        builder.add("dog", 1999, 1.0);
+        builder.add("cat", 1999, 3.0);
+        builder.add("cat", 2001, 7.0);
+        builder.add("cat", 2000, 4.0);
+        HistoryStore store = builder.build();
+
+        assertThat(store.wordCount()).isEqualTo(2);
+        assertThat(store.size()).isEqualTo(4);
+        assertThat(store.id("bird")).isEqualTo(-1);
+
+        TimeSeries cat = store.slice(store.id("cat"), 1400, 2100);
+        assertThat(cat.years()).isEqualTo(List.of(1999, 2000, 2001));
+        assertThat(cat.data()).isEqualTo(List.of(3.0, 4.0, 7.0));
+
+        TimeSeries catSlice = store.slice(store.id("cat"), 2000, 2000);
+        assertThat(catSlice.years()).isEqualTo(List.of(2000));
+
+        assertThat(store.slice(store.id("dog"), 2000, 2010).years()).isEmpty();
+    }
+}
@@ -1,9 +1,26 @@
 import browser.NgordnetQuery;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import main.HistoryTextHandler;
 import ngrams.NGramMap;
 
 import org.junit.jupiter.api.Test;
+import spark.QueryParamsMap;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 import static utils.Utils.*;
 import static com.google.common.truth.Truth.assertThat;
@@ -22,4 +39,157 @@ public class HistoryTextHandlerTest {
                 """;
         assertThat(actual).isEqualTo(expected);
     }
+
+    @Test
+    public void testStreamedFormats() throws Exception {
+        Path dir = Files.createTempDirectory("stream");
+        try {
+            /* The total of 2001 is 0, so the weight of cat in 2001 is infinite. */
+            HistoryTextHandler handler = new HistoryTextHandler(newMap(dir,
+                    "cat\t2000\t100\t1\ncat\t2001\t5\t1\nsay\"hi\t2000\t300\t1\n",
+                    "2000,1000,1,1\n2001,0,1,1\n"));
+            Map<String, String> params = Map.of("words", "cat,say\"hi,nope",
+                    "startYear", "2000", "endYear", "2001");
+
+            CapturedResponse json = new CapturedResponse();
+            assertThat(handler.handle(request(params, "json"), json)).isEmpty();
+            assertThat(json.type()).isEqualTo("application/json");
+            JsonArray words = new Gson().fromJson(json.written(), JsonArray.class);
+            assertThat(words.size()).isEqualTo(3);
+            JsonObject cat = words.get(0).getAsJsonObject();
+            assertThat(cat.get("word").getAsString()).isEqualTo("cat");
+            JsonArray history = cat.getAsJsonArray("history");
+            assertThat(history.size()).isEqualTo(2);
+            assertThat(history.get(0).getAsJsonArray().get(0).getAsInt()).isEqualTo(2000);
+            assertThat(history.get(0).getAsJsonArray().get(1).getAsDouble()).isEqualTo(0.1);
+            assertThat(history.get(1).getAsJsonArray().get(1).isJsonNull()).isTrue();
+            assertThat(words.get(1).getAsJsonObject().get("word").getAsString())
+                    .isEqualTo("say\"hi");
+            assertThat(words.get(2).getAsJsonObject().getAsJsonArray("history").size())
+                    .isEqualTo(0);
+
+            CapturedResponse csv = new CapturedResponse();
+            assertThat(handler.handle(request(params, "csv"), csv)).isEmpty();
+            assertThat(csv.type()).isEqualTo("text/csv");
+            assertThat(csv.written().split("\n", -1)).asList().containsExactly(
+                    "word,year,weight", "cat,2000,0.1", "cat,2001,", "\"say\"\"hi\",2000,0.3", "")
+                    .inOrder();
+
+            /* A format that is not streamed takes the usual path, which returns the body. */
+            CapturedResponse other = new CapturedResponse();
+            String body = handler.handle(request(params, "xml"), other);
+            assertThat(new Gson().fromJson(body, String.class).startsWith("cat: {2000=0.1"))
+                    .isTrue();
+            assertThat(other.written()).isEmpty();
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testMissingTotalFailsBeforeWriting() throws Exception {
+        Path dir = Files.createTempDirectory("stream");
+        try {
+            /* dog is fine, but the total counts lack cat's year 1999. */
+            HistoryTextHandler handler = new HistoryTextHandler(newMap(dir,
+                    "dog\t2000\t100\t1\ncat\t1999\t5\t1\n", "2000,1000,1,1\n"));
+            Map<String, String> params = Map.of("words", "dog,cat",
+                    "startYear", "1990", "endYear", "2001");
+            for (String format : List.of("json", "csv")) {
+                CapturedResponse response = new CapturedResponse();
+                try {
+                    handler.handle(request(params, format), response);
+                    throw new AssertionError("Expected a missing total count to fail");
+                } catch (IllegalArgumentException e) {
+                    assertThat(e.getMessage().contains("1999")).isTrue();
+                }
+                assertThat(response.written()).isEmpty();
+                assertThat(response.type()).isNull();
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /** Returns an NGramMap of the given WORDS and COUNTS file contents, written to DIR. */
+    private static NGramMap newMap(Path dir, String words, String counts) throws IOException {
+        Path wordsFile = Files.writeString(dir.resolve("words.csv"), words);
+        Path countsFile = Files.writeString(dir.resolve("counts.csv"), counts);
+        return new NGramMap(wordsFile.toString(), countsFile.toString());
+    }
+
+    private static void delete(Path dir) throws IOException {
+        Files.deleteIfExists(dir.resolve("words.csv"));
+        Files.deleteIfExists(dir.resolve("counts.csv"));
+        Files.delete(dir);
+    }
+
+    /** Returns a Request with the query parameters PARAMS plus the given FORMAT. */
+    private static Request request(Map<String, String> params, String format) {
+        return new Request() {
+            @Override
+            public QueryParamsMap queryMap() {
+                return new QueryParamsMap() {
+                    @Override
+                    public QueryParamsMap get(String... keys) {
+                        String value = keys[0].equals("format") ? format : params.get(keys[0]);
+                        return new QueryParamsMap() {
+                            @Override
+                            public String value() {
+                                return value;
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    /** A Response that keeps its content type and whatever is written to its output stream. */
+    private static class CapturedResponse extends Response {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private String type;
+
+        @Override
+        public void type(String contentType) {
+            type = contentType;
+        }
+
+        @Override
+        public String type() {
+            return type;
+        }
+
+        @Override
+        public HttpServletResponse raw() {
+            ServletOutputStream out = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                }
+
+                @Override
+                public void write(int b) {
+                    bytes.write(b);
+                }
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(
+                    HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[] {HttpServletResponse.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("getOutputStream")) {
+                            return out;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        String written() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
 }
@@ -0,0 +1,30 @@
+import browser.LatencyHistogram;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the LatencyHistogram class. */
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentilesWithinOneBucket() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v += 1) {
+            h.record(v * 1000);
+        }
+        assertThat(h.count()).isEqualTo(1000L);
+        assertThat(h.max()).isEqualTo(1000000L);
+
+        long median = h.percentile(0.5);
+        assertThat(median >= 500000 && median <= 500000 * 17 / 16).isTrue();
+        assertThat(h.percentile(1.0)).isEqualTo(1000000L);
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertThat(h.percentile(0.99)).isEqualTo(0L);
+        h.record(-5);
+        assertThat(h.max()).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,91 @@
+import ngrams.HistoryStore;
+import ngrams.Lexicon;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the Lexicon class. */
+public class LexiconTest {
+    private static final List<String> WORDS = List.of("electric", "electricity", "elect",
+            "election", "electron", "eclectic", "cat", "bat", "at", "catalog", "city");
+
+    private static HistoryStore store() {
+        HistoryStore.Builder builder = new HistoryStore.Builder();
+        for (String word : WORDS) {
+            builder.add(word, 2000, 1.0);
+        }
+        return builder.build();
+    }
+
+    private static List<String> words(HistoryStore store, int[] ids) {
+        List<String> words = new ArrayList<>();
+        for (int id : ids) {
+            words.add(store.word(id));
+        }
+        return words;
+    }
+
+    @Test
+    public void testPrefix() {
+        HistoryStore store = store();
+        Lexicon lexicon = new Lexicon(store);
+        assertThat(words(store, lexicon.withPrefix("electr")))
+                .isEqualTo(List.of("electric", "electricity", "electron"));
+        assertThat(words(store, lexicon.withPrefix("dog"))).isEmpty();
+        assertThat(lexicon.withPrefix("").length).isEqualTo(WORDS.size());
+    }
+
+    @Test
+    public void testWildcards() {
+        HistoryStore store = store();
+        Lexicon lexicon = new Lexicon(store);
+        assertThat(words(store, lexicon.matching("electr*")))
+                .isEqualTo(List.of("electric", "electricity", "electron"));
+        assertThat(words(store, lexicon.matching("*ity")))
+                .isEqualTo(List.of("city", "electricity"));
+        assertThat(words(store, lexicon.matching("?at")))
+                .isEqualTo(List.of("bat", "cat"));
+        assertThat(words(store, lexicon.matching("e*c*c")))
+                .isEqualTo(List.of("eclectic", "electric"));
+        assertThat(words(store, lexicon.matching("*ect*")))
+                .isEqualTo(List.of("eclectic", "elect", "election", "electric",
+                        "electricity", "electron"));
+        assertThat(words(store, lexicon.matching("cat"))).isEqualTo(List.of("cat"));
+        assertThat(words(store, lexicon.matching("ca"))).isEmpty();
+    }
+
+    /** Many words, in random order, so that the sort has to merge many runs. */
+    @Test
+    public void testRandomWordsAreSorted() {
+        Random r = new Random(61);
+        HistoryStore.Builder builder = new HistoryStore.Builder();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i += 1) {
+            StringBuilder word = new StringBuilder();
+            for (int length = r.nextInt(6) + 1; length > 0; length -= 1) {
+                word.append((char) ('a' + r.nextInt(4)));
+            }
+            builder.add(word.toString(), 2000, 1.0);
+            expected.add(word.toString());
+        }
+        HistoryStore store = builder.build();
+        Lexicon lexicon = new Lexicon(store);
+
+        assertThat(words(store, lexicon.withPrefix(""))).isEqualTo(List.copyOf(expected));
+        List<String> endingAb = new ArrayList<>();
+        for (String word : expected) {
+            if (word.endsWith("ab")) {
+                endingAb.add(word);
+            }
+        }
+        assertThat(words(store, lexicon.matching("*ab"))).isEqualTo(endingAb);
+        assertThat(words(store, lexicon.matching("c*ab"))).isEqualTo(
+                endingAb.stream().filter(w -> w.startsWith("c") && w.length() >= 3).toList());
+    }
+}
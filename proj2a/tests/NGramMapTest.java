@@ -1,3 +1,5 @@
+import ngrams.HistoryView;
+import ngrams.NGramDelta;
 import ngrams.NGramMap;
 import ngrams.TimeSeries;
 
@@ -100,4 +102,108 @@ public class NGramMapTest {
         assertThat(fishPlusDogWeight.get(1865)).isWithin(1E-10).of(expectedFishPlusDogWeight1865);
     }
 
-}  
\ No newline at end of file
+    @Test
+    public void testAppend() {
+        NGramMap ngm = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        TimeSeries before = ngm.countHistory("request");
+
+        NGramDelta delta = new NGramDelta();
+        delta.addLine("request\t2008\t1000\t10");
+        delta.addLine("zebra\t2007\t3\t1");
+        delta.addLine("2007,6000000000,1,1");
+        ngm.append(delta);
+
+        assertThat(before.get(2008)).isWithin(1E-10).of(795265.0);
+        assertThat(ngm.countHistory("request").get(2008)).isWithin(1E-10).of(1000.0);
+        assertThat(ngm.countHistory("request").get(2005)).isWithin(1E-10).of(646179.0);
+        assertThat(ngm.weightHistory("zebra").get(2007)).isWithin(1E-20).of(3.0 / 6e9);
+        assertThat(ngm.wordsMatching("z*")).isEqualTo(List.of("zebra"));
+    }
+
+    /** A lexicon built before an append is extended, and must match one built afterwards. */
+    @Test
+    public void testAppendExtendsLexicon() {
+        NGramMap extended = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        NGramMap rebuilt = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        List<String> before = extended.wordsMatching("*");
+
+        NGramDelta delta = new NGramDelta();
+        for (String word : List.of("aardvark", "zzz", "requests", "mid", "request", "tseuqer")) {
+            delta.addWord(word, 2007, 1);
+        }
+        extended.append(delta);
+        rebuilt.append(delta);
+
+        List<String> expected = new ArrayList<>(before);
+        expected.addAll(List.of("aardvark", "zzz", "requests", "mid", "tseuqer"));
+        expected.sort(null);
+        assertThat(extended.wordsMatching("*")).isEqualTo(expected);
+        for (String pattern : List.of("*", "re*", "*st", "*s", "?id", "a*k", "*e*")) {
+            assertThat(extended.wordsMatching(pattern)).isEqualTo(rebuilt.wordsMatching(pattern));
+        }
+    }
+
+    @Test
+    public void testPrecomputedWeightsMatchCounts() {
+        NGramMap precomputed = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        precomputed.precomputeWeights();
+        NGramMap lazy = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        assertWeightsMatchCounts(precomputed, lazy);
+        assertThat(precomputed.topWords(2, 2000, 2010)).isEqualTo(lazy.topWords(2, 2000, 2010));
+    }
+
+    @Test
+    public void testPrecomputedWeightsAreRebuiltAfterAppend() {
+        NGramMap precomputed = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        precomputed.precomputeWeights();
+        TimeSeries before = precomputed.weightHistory("request");
+        NGramMap lazy = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+
+        /* Change one count, add a word, and change the total of a year that request has. */
+        NGramDelta delta = new NGramDelta();
+        delta.addLine("airport\t2007\t1000000\t10");
+        delta.addLine("zebra\t2006\t3\t1");
+        delta.addLine("2006,5000000000,1,1");
+        precomputed.append(delta);
+        lazy.append(delta);
+
+        assertThat(precomputed.weightHistory("request").get(2006))
+                .isNotEqualTo(before.get(2006));
+        assertThat(precomputed.weightHistory("request").get(2005)).isEqualTo(before.get(2005));
+        assertWeightsMatchCounts(precomputed, lazy);
+        assertThat(precomputed.topWords(2, 2006, 2007)).isEqualTo(lazy.topWords(2, 2006, 2007));
+    }
+
+    /**
+     * Checks that the weights of every word of PRECOMPUTED are its counts divided by the total
+     * counts, and the same as the weights LAZY computes on demand.
+     */
+    private static void assertWeightsMatchCounts(NGramMap precomputed, NGramMap lazy) {
+        TimeSeries totals = precomputed.totalCountHistory();
+        for (String word : precomputed.wordsMatching("*")) {
+            TimeSeries expected = precomputed.countHistory(word).dividedBy(totals);
+            assertThat(precomputed.weightHistory(word)).isEqualTo(expected);
+            assertThat(precomputed.weightHistory(word, 2006, 2007))
+                    .isEqualTo(new TimeSeries(expected, 2006, 2007));
+            assertThat(lazy.weightHistory(word)).isEqualTo(expected);
+        }
+        List<String> words = precomputed.wordsMatching("*");
+        assertThat(precomputed.summedWeightHistory(words))
+                .isEqualTo(lazy.summedWeightHistory(words));
+    }
+
+    @Test
+    public void testViews() {
+        NGramMap ngm = new NGramMap(SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        HistoryView request = ngm.countView("request", 2006, 2007);
+        assertThat(request.years()).isEqualTo(List.of(2006, 2007));
+        assertThat(request.data()).isEqualTo(List.of(677820.0, 697645.0));
+        assertThat(request.get(2007)).isWithin(1E-10).of(697645.0);
+        assertThat(request.contains(2008)).isFalse();
+        assertThat(request.toTimeSeries()).isEqualTo(ngm.countHistory("request", 2006, 2007));
+
+        HistoryView airport = ngm.weightView("airport");
+        assertThat(airport.toString()).isEqualTo(ngm.weightHistory("airport").toString());
+        assertThat(ngm.countView("zebra").isEmpty()).isTrue();
+    }
+}
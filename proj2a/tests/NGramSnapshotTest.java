@@ -0,0 +1,201 @@
+import ngrams.NGramMap;
+import ngrams.TimeSeries;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Unit Tests for the binary snapshots behind NGramMap.load.
+ *
+ * To tell a snapshot read from a parse of the text files, most tests rewrite the words file
+ * after the snapshot is taken with different counts of the same length, and then put its
+ * modification time back. The snapshot then still matches the file's stamp, so load
+ * returns the old counts if it trusts the snapshot and the new ones if it falls back.
+ */
+public class NGramSnapshotTest {
+    private static final String OLD_WORDS = "cat\t2000\t100\t1\ncat\t2001\t200\t1\ndog\t2000\t300\t1\n";
+    private static final String NEW_WORDS = "cat\t2000\t900\t1\ncat\t2001\t800\t1\ndog\t2000\t700\t1\n";
+    private static final String COUNTS = "2000,1000,1,1\n2001,2000,1,1\n";
+
+    @Test
+    public void testRoundTripMatchesTextFiles() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            String snapshot = dir.resolve("very_short.ngrams").toString();
+            String words = "./data/ngrams/very_short.csv";
+            String counts = "./data/ngrams/total_counts.csv";
+            NGramMap parsed = new NGramMap(words, counts);
+
+            NGramMap.load(words, counts, snapshot);
+            assertThat(Files.isRegularFile(Path.of(snapshot))).isTrue();
+            NGramMap loaded = NGramMap.load(words, counts, snapshot);
+
+            for (String word : List.of("airport", "request", "wandered", "notaword")) {
+                assertThat(loaded.countHistory(word)).isEqualTo(parsed.countHistory(word));
+                assertThat(loaded.weightHistory(word)).isEqualTo(parsed.weightHistory(word));
+            }
+            assertThat(loaded.totalCountHistory()).isEqualTo(parsed.totalCountHistory());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testMatchingSnapshotIsUsed() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            String snapshot = takeSnapshotThenSwapWords(dir);
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(100.0, 200.0));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testWrongVersionFallsBack() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            String snapshot = takeSnapshotThenSwapWords(dir);
+            /* The version follows the four magic bytes. */
+            corrupt(Path.of(snapshot), 7);
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testStaleStampFallsBackAndRewrites() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            String snapshot = takeSnapshotThenSwapWords(dir);
+            Path words = dir.resolve("words.csv");
+            Files.setLastModifiedTime(words, FileTime.fromMillis(
+                    Files.getLastModifiedTime(words).toMillis() + 60_000));
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+
+            /* The fallback rewrote the snapshot from the new counts and the new stamp. */
+            FileTime modified = Files.getLastModifiedTime(words);
+            Files.writeString(words, OLD_WORDS);
+            Files.setLastModifiedTime(words, modified);
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testResizedSourceFallsBack() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            String snapshot = takeSnapshotThenSwapWords(dir);
+            Files.writeString(dir.resolve("words.csv"), NEW_WORDS + "eel\t2000\t1\t1\n");
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testCorruptByteFallsBack() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            String snapshot = takeSnapshotThenSwapWords(dir);
+            long size = Files.size(Path.of(snapshot));
+            /* One byte of the total counts, and then one byte of the checksum itself. */
+            corrupt(Path.of(snapshot), (int) size - 20);
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+
+            snapshot = takeSnapshotThenSwapWords(dir);
+            corrupt(Path.of(snapshot), (int) Files.size(Path.of(snapshot)) - 1);
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testTruncatedSnapshotFallsBack() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            String snapshot = takeSnapshotThenSwapWords(dir);
+            byte[] bytes = Files.readAllBytes(Path.of(snapshot));
+            Files.write(Path.of(snapshot), Arrays.copyOf(bytes, bytes.length / 2));
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testUnwritableSnapshotIsNotAnError() throws IOException {
+        Path dir = Files.createTempDirectory("snapshot");
+        try {
+            takeSnapshotThenSwapWords(dir);
+            String snapshot = dir.resolve("missing").resolve("snap.ngrams").toString();
+            assertThat(catCounts(dir, snapshot)).isEqualTo(List.of(900.0, 800.0));
+            assertThat(Files.exists(Path.of(snapshot))).isFalse();
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * Writes OLD_WORDS and COUNTS to DIR, loads them once to take a snapshot, and then
+     * replaces the words file with NEW_WORDS under the same size and modification time.
+     * Returns the snapshot's filename.
+     */
+    private static String takeSnapshotThenSwapWords(Path dir) throws IOException {
+        Path words = dir.resolve("words.csv");
+        Path counts = dir.resolve("counts.csv");
+        String snapshot = dir.resolve("snap.ngrams").toString();
+        Files.deleteIfExists(Path.of(snapshot));
+        Files.writeString(words, OLD_WORDS);
+        Files.writeString(counts, COUNTS);
+        NGramMap.load(words.toString(), counts.toString(), snapshot);
+
+        FileTime modified = Files.getLastModifiedTime(words);
+        Files.writeString(words, NEW_WORDS);
+        Files.setLastModifiedTime(words, modified);
+        return snapshot;
+    }
+
+    /** Returns the counts of "cat" in the map that load returns for the files in DIR. */
+    private static List<Double> catCounts(Path dir, String snapshot) {
+        NGramMap ngm = NGramMap.load(dir.resolve("words.csv").toString(),
+                dir.resolve("counts.csv").toString(), snapshot);
+        TimeSeries cat = ngm.countHistory("cat");
+        assertThat(cat.years()).isEqualTo(List.of(2000, 2001));
+        return cat.data();
+    }
+
+    /** Flips every bit of the byte at OFFSET of FILE. */
+    private static void corrupt(Path file, int offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[offset] ^= (byte) 0xFF;
+        Files.write(file, bytes);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import ngrams.HistoryStore;
+import ngrams.PopularityIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the PopularityIndex class. */
+public class PopularityIndexTest {
+    private static HistoryStore store() {
+        HistoryStore.Builder builder = new HistoryStore.Builder();
+        builder.add("cat", 1950, 5.0);
+        builder.add("cat", 2000, 1.0);
+        builder.add("dog", 1951, 2.0);
+        builder.add("dog", 2001, 4.0);
+        builder.add("fish", 2005, 4.0);
+        builder.add("bird", 1952, 1.0);
+        builder.add("bird", 1953, Double.NaN);
+        return builder.build();
+    }
+
+    /** Uses the counts themselves as weights. */
+    private static double[] weights(HistoryStore store) {
+        double[] weights = new double[store.size()];
+        for (int i = 0; i < weights.length; i += 1) {
+            weights[i] = store.count(i);
+        }
+        return weights;
+    }
+
+    private static List<String> words(HistoryStore store, List<Integer> ids) {
+        List<String> words = new ArrayList<>();
+        for (int id : ids) {
+            words.add(store.word(id));
+        }
+        return words;
+    }
+
+    @Test
+    public void testTop() {
+        HistoryStore store = store();
+        PopularityIndex index = new PopularityIndex(store, weights(store));
+
+        assertThat(words(store, index.top(2, 1400, 2100))).isEqualTo(List.of("cat", "dog"));
+        /* Ties are broken alphabetically. */
+        assertThat(words(store, index.top(2, 2000, 2010))).isEqualTo(List.of("dog", "fish"));
+        assertThat(words(store, index.top(10, 1950, 1959)))
+                .isEqualTo(List.of("cat", "dog", "bird"));
+        assertThat(words(store, index.top(10, 1960, 1990))).isEmpty();
+        assertThat(index.top(0, 1400, 2100)).isEmpty();
+    }
+
+    @Test
+    public void testTotalWeight() {
+        HistoryStore store = store();
+        PopularityIndex index = new PopularityIndex(store, weights(store));
+
+        assertThat(index.totalWeight(store.id("cat"), 1400, 2100)).isEqualTo(6.0);
+        assertThat(index.totalWeight(store.id("dog"), 2000, 2001)).isEqualTo(4.0);
+        assertThat(index.totalWeight(store.id("bird"), 1900, 2000)).isEqualTo(1.0);
+        assertThat(index.totalWeight(store.id("fish"), 1900, 2000)).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,72 @@
+import browser.NgordnetQuery;
+import browser.QueryCache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the QueryCache class. */
+public class QueryCacheTest {
+    @Test
+    public void testNormalizedHitsAndMisses() {
+        QueryCache cache = new QueryCache(10, 1 << 20);
+        NgordnetQuery a = QueryCache.normalize(
+                new NgordnetQuery(Arrays.asList(" cat", "dog "), 1900, 2000, 0));
+        NgordnetQuery b = QueryCache.normalize(
+                new NgordnetQuery(List.of("cat", "dog"), 1900, 2000, 0));
+
+        assertThat(cache.get(a)).isNull();
+        cache.put(a, "result");
+        assertThat(cache.get(b)).isEqualTo("result");
+        assertThat(cache.hits()).isEqualTo(1L);
+        assertThat(cache.misses()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        QueryCache cache = new QueryCache(2, 1 << 20);
+        NgordnetQuery a = new NgordnetQuery(List.of("a"), 1900, 2000, 0);
+        NgordnetQuery b = new NgordnetQuery(List.of("b"), 1900, 2000, 0);
+        NgordnetQuery c = new NgordnetQuery(List.of("c"), 1900, 2000, 0);
+
+        cache.put(a, "A");
+        cache.put(b, "B");
+        cache.get(a);
+        cache.put(c, "C");
+
+        assertThat(cache.get(b)).isNull();
+        assertThat(cache.get(a)).isEqualTo("A");
+        assertThat(cache.get(c)).isEqualTo("C");
+        assertThat(cache.evictions()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testByteBound() {
+        QueryCache cache = new QueryCache(100, 1000);
+        for (int i = 0; i < 10; i += 1) {
+            cache.put(new NgordnetQuery(List.of("w" + i), 1900, 2000, 0), "x".repeat(200));
+        }
+        assertThat(cache.bytes()).isAtMost(1000L);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNewerVersionDropsEntries() {
+        QueryCache cache = new QueryCache(10, 1 << 20);
+        NgordnetQuery a = new NgordnetQuery(List.of("a"), 1900, 2000, 0);
+
+        cache.put(a, 0, "old");
+        assertThat(cache.get(a, 0)).isEqualTo("old");
+        assertThat(cache.get(a, 1)).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+
+        /* A response computed from version 0 arrives after version 1 was seen. */
+        cache.put(a, 0, "old");
+        assertThat(cache.get(a, 1)).isNull();
+        cache.put(a, 1, "new");
+        assertThat(cache.get(a, 1)).isEqualTo("new");
+    }
+}
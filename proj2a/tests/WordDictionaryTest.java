@@ -0,0 +1,46 @@
+import ngrams.WordDictionary;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the WordDictionary class. */
+public class WordDictionaryTest {
+    @Test
+    public void testInternAndLookup() {
+        WordDictionary.Builder builder = new WordDictionary.Builder();
+        for (int i = 0; i < 5000; i += 1) {
+            assertThat(builder.intern("word" + i)).isEqualTo(i);
+        }
+        assertThat(builder.intern("naïve")).isEqualTo(5000);
+        assertThat(builder.intern("word42")).isEqualTo(42);
+        WordDictionary dictionary = builder.build();
+
+        assertThat(dictionary.size()).isEqualTo(5001);
+        assertThat(dictionary.id("word4999")).isEqualTo(4999);
+        assertThat(dictionary.id("naïve")).isEqualTo(5000);
+        assertThat(dictionary.word(5000)).isEqualTo("naïve");
+        assertThat(dictionary.id("word5000")).isEqualTo(-1);
+        assertThat(dictionary.id("")).isEqualTo(-1);
+    }
+
+    @Test
+    public void testOrderAndExtension() {
+        WordDictionary.Builder builder = new WordDictionary.Builder();
+        int cat = builder.intern("cat");
+        int catalog = builder.intern("catalog");
+        int bat = builder.intern("bat");
+        WordDictionary dictionary = builder.build();
+
+        assertThat(dictionary.compare(bat, cat) < 0).isTrue();
+        assertThat(dictionary.compare(cat, catalog) < 0).isTrue();
+        assertThat(dictionary.compareReversed(cat, bat) > 0).isTrue();
+        assertThat(dictionary.compare(cat, cat)).isEqualTo(0);
+
+        WordDictionary.Builder extended = new WordDictionary.Builder(dictionary);
+        assertThat(extended.intern("bat")).isEqualTo(bat);
+        assertThat(extended.intern("dog")).isEqualTo(3);
+        assertThat(extended.build().id("catalog")).isEqualTo(catalog);
+        assertThat(dictionary.id("dog")).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,159 @@
+package ngrams;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Unit Tests for the NGramLoader scanner. Small files are cut into chunks of a few dozen
+ * bytes, so that chunk boundaries, the merge of many chunks and "last row wins" across chunks
+ * all run, and the result is compared with a parse built on String.split.
+ */
+public class NGramLoaderTest {
+    private static final String[] WORDS = {"cat", "dog", "naïve", "a_b", "x"};
+    private static final String[] COUNTS = {"0", "7", "-12", "123456789012345678",
+        "12345678901234567890123", "1e3", "2.5", "-0.125", "1E-4"};
+
+    @Test
+    public void testChunkedWordsMatchSplitParse() throws IOException {
+        Path file = Files.createTempFile("words", ".csv");
+        try {
+            StringBuilder text = new StringBuilder("cat\t2000\t1\t1\n");
+            Random r = new Random(61);
+            for (int i = 0; i < 400; i += 1) {
+                /* Now and then a year BC, to exercise negative years. */
+                int year = r.nextInt(30) + (r.nextInt(20) == 0 ? -1010 : 1990);
+                text.append(WORDS[r.nextInt(WORDS.length)]).append('\t').append(year)
+                        .append('\t').append(COUNTS[r.nextInt(COUNTS.length)]);
+                if (r.nextBoolean()) {
+                    text.append("\t").append(r.nextInt(100));
+                }
+                text.append(r.nextInt(4) == 0 ? "\r\n" : "\n");
+                if (r.nextInt(20) == 0) {
+                    text.append(r.nextBoolean() ? "\n" : "\r\n");
+                }
+            }
+            /* The same word and year as the first row, many chunks later. */
+            text.append("cat\t2000\t99");
+            Files.writeString(file, text);
+
+            assertThat(chunkCount(file, 16)).isGreaterThan(10);
+            HistoryStore store = NGramLoader.loadWords(file.toString(), 16);
+            Map<String, TreeMap<Integer, Double>> expected = splitParseWords(text.toString());
+            assertThat(store.wordCount()).isEqualTo(expected.size());
+            for (Map.Entry<String, TreeMap<Integer, Double>> entry : expected.entrySet()) {
+                int id = store.id(entry.getKey());
+                assertThat(store.slice(id, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                        .isEqualTo(entry.getValue());
+            }
+            assertThat(expected.get("cat").get(2000)).isEqualTo(99.0);
+
+            /* One chunk for the whole file gives the same result. */
+            HistoryStore whole = NGramLoader.loadWords(file.toString(), 1 << 22);
+            for (String word : expected.keySet()) {
+                assertThat(whole.slice(whole.id(word), Integer.MIN_VALUE, Integer.MAX_VALUE))
+                        .isEqualTo(store.slice(store.id(word), Integer.MIN_VALUE,
+                                Integer.MAX_VALUE));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testChunkedCountsMatchSplitParse() throws IOException {
+        Path file = Files.createTempFile("counts", ".csv");
+        try {
+            StringBuilder text = new StringBuilder();
+            TreeMap<Integer, Double> expected = new TreeMap<>();
+            Random r = new Random(61);
+            for (int i = 0; i < 200; i += 1) {
+                int year = r.nextInt(50) + 1950;
+                String count = COUNTS[r.nextInt(COUNTS.length)];
+                text.append(year).append(',').append(count).append(",1,1")
+                        .append(r.nextInt(4) == 0 ? "\r\n" : "\n");
+                expected.put(year, Double.parseDouble(count));
+            }
+            Files.writeString(file, text);
+
+            assertThat(chunkCount(file, 16)).isGreaterThan(10);
+            assertThat(NGramLoader.loadCounts(file.toString(), 16)).isEqualTo(expected);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testMalformedLineInLaterChunk() throws IOException {
+        Path file = Files.createTempFile("words", ".csv");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 50; i += 1) {
+                text.append("cat\t").append(1900 + i).append("\t5\t1\n");
+            }
+            int offset = text.toString().getBytes(StandardCharsets.UTF_8).length;
+            text.append("cat\tyear\t5\t1\n");
+            for (String bad : new String[] {"cat\t1950\t\n", "cat\n", "cat\t-\t5\n",
+                "cat\t1950\tlots\n"}) {
+                Files.writeString(file, text + bad + "dog\t2000\t1\t1\n");
+                try {
+                    NGramLoader.loadWords(file.toString(), 16);
+                    throw new AssertionError("Expected a malformed line");
+                } catch (IllegalArgumentException e) {
+                    assertThat(e.getMessage()).isEqualTo("Malformed line at byte " + offset
+                            + " of " + file + ": cat\tyear\t5\t1");
+                }
+            }
+
+            /* With the first bad line fixed, the error points at the next one. */
+            text.setLength(offset);
+            text.append("cat\t1950\t5\t1\n");
+            int badOffset = text.length();
+            Files.writeString(file, text + "cat\t1951\tlots\n");
+            try {
+                NGramLoader.loadWords(file.toString(), 16);
+                throw new AssertionError("Expected a malformed line");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage()).isEqualTo("Malformed line at byte " + badOffset
+                        + " of " + file + ": cat\t1951\tlots");
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /** Returns the number of chunks FILE is cut into for the given minimum chunk size. */
+    private static int chunkCount(Path file, long minChunkBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return NGramLoader.chunkBoundaries(channel, minChunkBytes).length - 1;
+        }
+    }
+
+    /** Parses a words file the slow way, with a later row for a word and year winning. */
+    private static Map<String, TreeMap<Integer, Double>> splitParseWords(String text) {
+        Map<String, TreeMap<Integer, Double>> result = new HashMap<>();
+        for (String line : text.split("\n")) {
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            result.computeIfAbsent(fields[0], w -> new TreeMap<>())
+                    .put(Integer.parseInt(fields[1]), Double.parseDouble(fields[2]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package speed;
+
+import ngrams.HistoryView;
+import ngrams.NGramMap;
+import ngrams.TimeSeries;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToDoubleFunction;
+
+import static utils.Utils.TOP_14337_WORDS_FILE;
+import static utils.Utils.TOTAL_COUNTS_FILE;
+
+/**
+ * Measures the throughput of NGramMap.countHistory, which copies every history into a new
+ * TimeSeries, against NGramMap.countView, which hands out a read-only view of the shared
+ * columns, with 1, 8 and 32 threads looking up random words at once.
+ *
+ * Each configuration is warmed up for WARMUP_ITERATIONS and then measured for
+ * MEASURED_ITERATIONS, each lasting ITERATION_MILLIS. The mean and standard deviation of the
+ * measured iterations are printed in lookups per second.
+ */
+public class CountHistoryThroughput {
+    private static final int[] THREADS = {1, 8, 32};
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 1000;
+
+    /** Keeps the JIT from discarding the lookups. */
+    private static volatile double sink;
+
+    public static void main(String[] args) throws Exception {
+        String wordsFile = args.length > 0 ? args[0] : TOP_14337_WORDS_FILE;
+        NGramMap ngm = new NGramMap(wordsFile, TOTAL_COUNTS_FILE);
+        List<String> words = new ArrayList<>();
+        for (String line : Files.readAllLines(Path.of(wordsFile))) {
+            if (!line.isEmpty()) {
+                words.add(line.substring(0, line.indexOf('\t')));
+            }
+        }
+        String[] lookups = words.stream().distinct().toArray(String[]::new);
+
+        System.out.printf("%-14s %8s %18s %12s%n", "method", "threads", "lookups/s", "stddev");
+        for (int threads : THREADS) {
+            report("countHistory", threads, lookups, word -> {
+                TimeSeries ts = ngm.countHistory(word, 1900, 2000);
+                return ts.isEmpty() ? 0.0 : ts.firstEntry().getValue();
+            });
+            report("countView", threads, lookups, word -> {
+                HistoryView view = ngm.countView(word, 1900, 2000);
+                return view.isEmpty() ? 0.0 : view.value(0);
+            });
+        }
+    }
+
+    private static void report(String name, int threads, String[] words,
+                               ToDoubleFunction<String> lookup) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i += 1) {
+            iteration(threads, words, lookup);
+        }
+        double[] rates = new double[MEASURED_ITERATIONS];
+        double mean = 0.0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i += 1) {
+            rates[i] = iteration(threads, words, lookup);
+            mean += rates[i] / MEASURED_ITERATIONS;
+        }
+        double variance = 0.0;
+        for (double rate : rates) {
+            variance += (rate - mean) * (rate - mean) / MEASURED_ITERATIONS;
+        }
+        System.out.printf("%-14s %8d %18.0f %12.0f%n", name, threads, mean, Math.sqrt(variance));
+    }
+
+    /** Runs THREADS threads of lookups for one iteration and returns the lookups per second. */
+    private static double iteration(int threads, String[] words, ToDoubleFunction<String> lookup)
+            throws InterruptedException {
+        long[] counts = new long[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long[] deadline = new long[1];
+        for (int t = 0; t < threads; t += 1) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                double total = 0.0;
+                long n = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 256; i += 1) {
+                        total += lookup.applyAsDouble(words[random.nextInt(words.length)]);
+                    }
+                    n += 256;
+                }
+                counts[index] = n;
+                sink += total;
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + ITERATION_MILLIS * 1_000_000;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total / (elapsed / 1e9);
+    }
+}
@@ -0,0 +1,167 @@
+package speed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A small harness for single-threaded average-time benchmarks. Each benchmark is warmed up
+ * for a number of iterations and then measured for a number of iterations, where every
+ * iteration calls the benchmarked operation in a loop for a fixed time and takes the mean
+ * time per call.
+ *
+ * Results are printed as a table and can be written as JSON in the layout JMH uses for
+ * -rf json, so the same tools can read them to track regressions from build to build:
+ *
+ *   [{"benchmark": "...", "mode": "avgt", "params": {...},
+ *     "primaryMetric": {"score": ..., "scoreError": ..., "scoreUnit": "us/op",
+ *                       "rawData": [[...]]}}, ...]
+ *
+ * scoreError is the half-width of a 99.9% confidence interval on the score.
+ */
+public class MicroBench {
+    /** z value of a two-sided 99.9% confidence interval. */
+    private static final double Z_999 = 3.29;
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+
+    /** Keeps the JIT from discarding the results of benchmarked operations. */
+    private static volatile int sink;
+
+    /** One benchmark's scores, in its own unit. */
+    private record Result(String name, Map<String, String> params, TimeUnit unit,
+                          double[] scores) {
+        double mean() {
+            double sum = 0.0;
+            for (double score : scores) {
+                sum += score;
+            }
+            return sum / scores.length;
+        }
+
+        double error() {
+            if (scores.length < 2) {
+                return Double.NaN;
+            }
+            double mean = mean();
+            double squares = 0.0;
+            for (double score : scores) {
+                squares += (score - mean) * (score - mean);
+            }
+            double stddev = Math.sqrt(squares / (scores.length - 1));
+            return Z_999 * stddev / Math.sqrt(scores.length);
+        }
+    }
+
+    public MicroBench(int warmupIterations, int measuredIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+    }
+
+    /** Returns the parameters KEYSANDVALUES (key, value, key, value, ...) in that order. */
+    public static Map<String, String> params(String... keysAndValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            params.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    /**
+     * Benchmarks OPERATION as NAME with the given PARAMS, reports its mean time per call in
+     * UNIT, and remembers the result for writeJson.
+     */
+    public void run(String name, Map<String, String> params, TimeUnit unit,
+                    Supplier<?> operation) {
+        for (int i = 0; i < warmupIterations; i += 1) {
+            iteration(operation);
+        }
+        double[] scores = new double[measuredIterations];
+        for (int i = 0; i < measuredIterations; i += 1) {
+            scores[i] = iteration(operation) / unit.toNanos(1);
+        }
+        Result result = new Result(name, new LinkedHashMap<>(params), unit, scores);
+        results.add(result);
+        System.out.printf("%-28s %-40s %14.3f +- %10.3f %s%n", name, params, result.mean(),
+                result.error(), unitName(unit));
+    }
+
+    /** Calls OPERATION for one iteration and returns the mean nanoseconds per call. */
+    private double iteration(Supplier<?> operation) {
+        long calls = 0;
+        int hash = 0;
+        /* Calls are made in batches, so cheap operations are not swamped by reading the
+         * clock. Batches double in size until each takes a noticeable part of the iteration. */
+        int batch = 1;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            long batchStart = System.nanoTime();
+            for (int i = 0; i < batch; i += 1) {
+                Object value = operation.get();
+                hash += (value == null) ? 0 : value.hashCode();
+            }
+            calls += batch;
+            long now = System.nanoTime();
+            if (now - batchStart < iterationNanos / 64 && batch < (1 << 20)) {
+                batch *= 2;
+            }
+            elapsed = now - start;
+        } while (elapsed < iterationNanos);
+        sink += hash;
+        return (double) elapsed / calls;
+    }
+
+    private static String unitName(TimeUnit unit) {
+        return switch (unit) {
+            case NANOSECONDS -> "ns/op";
+            case MICROSECONDS -> "us/op";
+            case MILLISECONDS -> "ms/op";
+            default -> "s/op";
+        };
+    }
+
+    /** Writes every result so far to FILE as JSON. */
+    public void writeJson(Path file) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int r = 0; r < results.size(); r += 1) {
+            Result result = results.get(r);
+            json.append("  {\"benchmark\": ").append(quote(result.name))
+                    .append(", \"mode\": \"avgt\", \"params\": {");
+            boolean first = true;
+            for (Map.Entry<String, String> param : result.params.entrySet()) {
+                json.append(first ? "" : ", ").append(quote(param.getKey())).append(": ")
+                        .append(quote(param.getValue()));
+                first = false;
+            }
+            json.append("}, \"primaryMetric\": {\"score\": ").append(number(result.mean()))
+                    .append(", \"scoreError\": ").append(number(result.error()))
+                    .append(", \"scoreUnit\": ").append(quote(unitName(result.unit)))
+                    .append(", \"rawData\": [[");
+            for (int i = 0; i < result.scores.length; i += 1) {
+                json.append(i > 0 ? ", " : "").append(number(result.scores[i]));
+            }
+            json.append("]]}}").append(r < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        Files.writeString(file, json);
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "\"NaN\"";
+    }
+}
@@ -0,0 +1,121 @@
+package speed;
+
+import ngrams.NGramMap;
+import ngrams.TimeSeries;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static speed.MicroBench.params;
+import static utils.Utils.SHORT_WORDS_FILE;
+import static utils.Utils.TOP_14337_WORDS_FILE;
+import static utils.Utils.TOP_49887_WORDS_FILE;
+import static utils.Utils.TOTAL_COUNTS_FILE;
+
+/**
+ * Microbenchmarks for the proj2a data layer:
+ *
+ *   construct            new NGramMap for each data file
+ *   countHistory         one word, 1900 to 2000, cycling through every word of the file
+ *   weightHistory        the same, for relative frequencies
+ *   summedWeightHistory  1, 10, 100 and 1000 words, 1900 to 2000
+ *   TimeSeries.plus      two series of 10, 100 and 701 years
+ *   TimeSeries.dividedBy the same
+ *
+ * run against the very_short, top_14377 and top_49887 words files (any that are missing are
+ * skipped). Results are printed and written as JSON to the file named by the first argument,
+ * benchmark-results.json by default; see MicroBench for the layout. Comparing that file
+ * between builds shows regressions.
+ */
+public class NGramBenchmarks {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 1000;
+    private static final int[] WORD_COUNTS = {1, 10, 100, 1000};
+    private static final int[] SERIES_LENGTHS = {10, 100, 701};
+
+    public static void main(String[] args) throws IOException {
+        Path out = Path.of(args.length > 0 ? args[0] : "benchmark-results.json");
+        MicroBench bench = new MicroBench(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                ITERATION_MILLIS);
+
+        Map<String, String> files = Map.of(
+                "very_short", SHORT_WORDS_FILE,
+                "top_14377", TOP_14337_WORDS_FILE,
+                "top_49887", TOP_49887_WORDS_FILE);
+        for (String name : List.of("very_short", "top_14377", "top_49887")) {
+            String file = files.get(name);
+            if (!Files.isRegularFile(Path.of(file))) {
+                System.out.println("Skipping " + name + ": " + file + " not found");
+                continue;
+            }
+            benchmarkFile(bench, name, file);
+        }
+        benchmarkTimeSeries(bench);
+
+        bench.writeJson(out);
+        System.out.println("Wrote " + out.toAbsolutePath());
+    }
+
+    private static void benchmarkFile(MicroBench bench, String name, String file)
+            throws IOException {
+        bench.run("construct", params("file", name), TimeUnit.MILLISECONDS,
+                () -> new NGramMap(file, TOTAL_COUNTS_FILE));
+
+        NGramMap ngm = new NGramMap(file, TOTAL_COUNTS_FILE);
+        String[] words = distinctWords(file);
+        int[] next = new int[1];
+        bench.run("countHistory", params("file", name), TimeUnit.NANOSECONDS, () -> {
+            next[0] = (next[0] + 1) % words.length;
+            return ngm.countHistory(words[next[0]], 1900, 2000);
+        });
+        bench.run("weightHistory", params("file", name), TimeUnit.NANOSECONDS, () -> {
+            next[0] = (next[0] + 1) % words.length;
+            return ngm.weightHistory(words[next[0]], 1900, 2000);
+        });
+
+        for (int n : WORD_COUNTS) {
+            /* Small files have fewer words than this, so words repeat. */
+            List<String> query = new ArrayList<>(n);
+            for (int i = 0; i < n; i += 1) {
+                query.add(words[(int) ((long) i * 7919 % words.length)]);
+            }
+            bench.run("summedWeightHistory", params("file", name, "words", Integer.toString(n)),
+                    TimeUnit.MICROSECONDS, () -> ngm.summedWeightHistory(query, 1900, 2000));
+        }
+    }
+
+    private static void benchmarkTimeSeries(MicroBench bench) {
+        for (int length : SERIES_LENGTHS) {
+            TimeSeries a = new TimeSeries();
+            TimeSeries b = new TimeSeries();
+            for (int i = 0; i < length; i += 1) {
+                a.put(TimeSeries.MIN_YEAR + i, (double) i);
+                b.put(TimeSeries.MIN_YEAR + i, i + 1.0);
+            }
+            Map<String, String> params = params("years", Integer.toString(length));
+            bench.run("TimeSeries.plus", params, TimeUnit.MICROSECONDS, () -> a.plus(b));
+            bench.run("TimeSeries.dividedBy", params, TimeUnit.MICROSECONDS,
+                    () -> a.dividedBy(b));
+        }
+    }
+
+    /** Returns the distinct words of the words file FILE, in file order. */
+    private static String[] distinctWords(String file) throws IOException {
+        Set<String> words = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(Path.of(file))) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                words.add(line.substring(0, tab));
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
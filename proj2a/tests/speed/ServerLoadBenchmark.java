@@ -0,0 +1,197 @@
+package speed;
+
+import browser.LatencyHistogram;
+import browser.NgordnetQuery;
+import browser.NgordnetQueryHandler;
+import browser.NgordnetServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static spark.Spark.awaitInitialization;
+import static spark.Spark.port;
+
+/**
+ * Compares NgordnetServer on Spark's default pool of platform threads against
+ * NgordnetServer with virtual threads and an admission limit, under many concurrent clients.
+ *
+ * Each server runs in a child JVM and answers a single route whose handler blocks for a few
+ * milliseconds, as a handler waiting on chart rendering or on a file-backed lookup would,
+ * and then does a little work. Every client sends requests back to back for a fixed time.
+ * The benchmark prints throughput, latency percentiles and the number of requests that were
+ * turned away or failed.
+ *
+ * Usage: ServerLoadBenchmark [clients [seconds [blockMillis]]], by default 1000 clients for
+ * 20 seconds against a handler that blocks for 20 ms.
+ */
+public class ServerLoadBenchmark {
+    private static final int PLATFORM_PORT = 4601;
+    private static final int VIRTUAL_PORT = 4602;
+    /** Admission limit and wait used by the virtual-thread server. */
+    private static final int MAX_IN_FLIGHT = 512;
+    private static final long ADMISSION_WAIT_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args[1].equals("virtual"), Integer.parseInt(args[2]),
+                    Long.parseLong(args[3]));
+            return;
+        }
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long blockMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        System.out.printf("%d clients for %d s, handler blocks for %d ms, %d processors%n%n",
+                clients, seconds, blockMillis, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-9s %12s %9s %9s %9s %8s %8s%n",
+                "threads", "requests/s", "p50 ms", "p99 ms", "max ms", "503s", "errors");
+        run("platform", PLATFORM_PORT, clients, seconds, blockMillis);
+        run("virtual", VIRTUAL_PORT, clients, seconds, blockMillis);
+    }
+
+    /** Starts a server of the given MODE in a child JVM, loads it, prints a row and stops it. */
+    private static void run(String mode, int port, int clients, int seconds, long blockMillis)
+            throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java";
+        Process server = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ServerLoadBenchmark.class.getName(), "serve", mode,
+                Integer.toString(port), Long.toString(blockMillis))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try {
+            URI uri = URI.create("http://localhost:" + port + "/load?words=cat,dog");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            awaitServer(server, client, uri);
+
+            /* Warm up both JVMs before measuring. */
+            load(client, uri, clients, Math.max(1, seconds / 4));
+            Result result = load(client, uri, clients, seconds);
+
+            LatencyHistogram latency = result.latency;
+            System.out.printf("%-9s %12.0f %9.1f %9.1f %9.1f %8d %8d%n", mode,
+                    latency.count() / (double) seconds,
+                    latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6,
+                    latency.max() / 1e6, result.rejected.get(), result.errors.get());
+        } finally {
+            server.destroy();
+            server.waitFor();
+        }
+    }
+
+    /**
+     * Waits until the child JVM SERVER answers URI. Throws an IllegalStateException straight
+     * away if SERVER exits, for instance because its port is taken, and after 30 seconds if
+     * it never answers.
+     */
+    private static void awaitServer(Process server, HttpClient client, URI uri)
+            throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(1)).build();
+        for (int attempt = 0; attempt < 300; attempt += 1) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server for " + uri + " exited with code "
+                        + server.exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding())
+                        .statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                /* Not listening yet. */
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Server at " + uri + " did not start");
+    }
+
+    /** Latencies of successful requests, and counts of the rest. */
+    private static class Result {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+    }
+
+    /** Has CLIENTS virtual threads send requests to URI back to back for SECONDS seconds. */
+    private static Result load(HttpClient client, URI uri, int clients, int seconds)
+            throws InterruptedException {
+        Result result = new Result();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i += 1) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding())
+                                    .statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        if (status == 200) {
+                            result.latency.record(System.nanoTime() - start);
+                        } else if (status == 503) {
+                            result.rejected.incrementAndGet();
+                        } else {
+                            result.errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return result;
+    }
+
+    /** Runs the server side of the benchmark until the process is killed. */
+    private static void serve(boolean virtual, int serverPort, long blockMillis) {
+        port(serverPort);
+        NgordnetServer hns = new NgordnetServer();
+        if (virtual) {
+            hns.enableVirtualThreads(MAX_IN_FLIGHT, ADMISSION_WAIT_MILLIS);
+        }
+        hns.startUp();
+        hns.register("load", new BlockingHandler(blockMillis));
+        awaitInitialization();
+    }
+
+    /** Blocks for a fixed time, then does a little CPU work on the query's words. */
+    private static class BlockingHandler extends NgordnetQueryHandler {
+        private final long blockMillis;
+
+        BlockingHandler(long blockMillis) {
+            this.blockMillis = blockMillis;
+        }
+
+        @Override
+        public String handle(NgordnetQuery q) {
+            try {
+                Thread.sleep(blockMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int hash = 0;
+            for (int i = 0; i < 1000; i += 1) {
+                hash = 31 * hash + q.words().hashCode() + i;
+            }
+            return Integer.toString(hash);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package main;
+
+import browser.NgordnetQuery;
+import browser.NgordnetQueryHandler;
+import wordnet.HypernymIndex;
+import wordnet.WordNet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+public class CommonHypernymsHandler extends NgordnetQueryHandler {
+    private final WordNet wordNet;
+
+    public CommonHypernymsHandler(WordNet wordNet) {
+        this.wordNet = wordNet;
+    }
+
+    /**
+     * Returns the nearest common hypernyms of the first two words of Q and the shortest
+     * hypernym path between them, which climbs from a synset of the first word to a common
+     * hypernym and back down to a synset of the second. The path names each synset by its
+     * first word.
+     */
+    @Override
+    public String handle(NgordnetQuery q) {
+        List<String> words = q.words();
+        if (words.size() < 2) {
+            return "Please enter two words separated by a comma.\n";
+        }
+        String first = words.get(0);
+        String second = words.get(1);
+        HypernymIndex.AncestralPath path = wordNet.hypernyms().shortestPath(
+                wordNet.synsets(first), wordNet.synsets(second));
+        if (path == null) {
+            return first + " and " + second + " have no common hypernym.\n";
+        }
+
+        TreeSet<String> common = new TreeSet<>();
+        for (int synset : path.ancestors()) {
+            common.addAll(wordNet.synsetWords(synset));
+        }
+        List<String> names = new ArrayList<>();
+        for (int synset : path.path()) {
+            names.add(wordNet.synsetWords(synset).get(0));
+        }
+        return "common hypernyms: " + common + "\n"
+                + "distance: " + path.length() + "\n"
+                + "path: " + names + "\n";
+    }
+}
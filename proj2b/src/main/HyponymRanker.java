@@ -0,0 +1,169 @@
+package main;
+
+import ngrams.NGramMap;
+import wordnet.CompressedBitmap;
+import wordnet.WordNet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Picks the most popular words out of a hyponym closure, where a word's popularity is the
+ * sum of its NGramMap counts over a range of years.
+ *
+ * Each candidate's counts are summed straight from the NGramMap's packed columns, and only
+ * the best K candidates seen so far are kept, in a bounded min-heap whose root is the
+ * weakest of them. Candidates that the words file does not know are skipped by a lookup in
+ * a table built once, without touching the NGramMap. Closures of at least
+ * PARALLEL_THRESHOLD words are split into chunks that are ranked on the common fork-join
+ * pool, each into its own heap, and the heaps are merged at the end.
+ */
+public class HyponymRanker {
+
+    /** Smallest number of candidates that is ranked in parallel. */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    /** Number of candidates each parallel chunk ranks. */
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    private final WordNet wordNet;
+    private final NGramMap ngm;
+    /** The NGramMap id of each WordNet word id, or -1 if the words file lacks the word. */
+    private final int[] ngramIds;
+
+    public HyponymRanker(WordNet wordNet, NGramMap ngm) {
+        this.wordNet = wordNet;
+        this.ngm = ngm;
+        this.ngramIds = new int[wordNet.wordCount()];
+        for (int w = 0; w < ngramIds.length; w += 1) {
+            ngramIds[w] = ngm.id(wordNet.word(w));
+        }
+    }
+
+    /**
+     * Returns the K words of CANDIDATES, a set of WordNet word ids, with the highest total
+     * count between STARTYEAR and ENDYEAR, in alphabetical order. Words with a total count
+     * of zero are left out, so fewer than K words may come back. Ties go to the word that
+     * comes first alphabetically.
+     */
+    public List<String> top(CompressedBitmap candidates, int k, int startYear, int endYear) {
+        if (k <= 0 || candidates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int[] ids = candidates.toArray();
+        TopK best;
+        if (ids.length < PARALLEL_THRESHOLD) {
+            best = rank(ids, 0, ids.length, k, startYear, endYear);
+        } else {
+            int chunks = (ids.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            best = IntStream.range(0, chunks).parallel()
+                    .mapToObj(c -> rank(ids, c * CHUNK_SIZE,
+                            Math.min(ids.length, (c + 1) * CHUNK_SIZE), k, startYear, endYear))
+                    .reduce(TopK::merge).orElseThrow();
+        }
+
+        /* WordNet ids follow alphabetical order, so sorting the ids sorts the words. */
+        int[] winners = Arrays.copyOf(best.ids, best.size);
+        Arrays.sort(winners);
+        List<String> result = new ArrayList<>(winners.length);
+        for (int id : winners) {
+            result.add(wordNet.word(id));
+        }
+        return result;
+    }
+
+    private TopK rank(int[] ids, int from, int to, int k, int startYear, int endYear) {
+        TopK best = new TopK(k);
+        for (int i = from; i < to; i += 1) {
+            int ngramId = ngramIds[ids[i]];
+            if (ngramId < 0) {
+                continue;
+            }
+            double total = ngm.totalCount(ngramId, startYear, endYear);
+            if (total > 0) {
+                best.offer(ids[i], total);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The best K (id, score) pairs offered so far, as a binary min-heap whose root is the
+     * worst of them: the lowest score, or of equal scores the highest id.
+     */
+    private static class TopK {
+        final int[] ids;
+        final double[] scores;
+        int size;
+
+        TopK(int k) {
+            ids = new int[k];
+            scores = new double[k];
+        }
+
+        void offer(int id, double score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                size += 1;
+                siftUp(size - 1);
+            } else if (worse(ids[0], scores[0], id, score)) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        /** Adds every pair of OTHER to this heap and returns this heap. */
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i += 1) {
+                offer(other.ids[i], other.scores[i]);
+            }
+            return this;
+        }
+
+        private static boolean worse(int id, double score, int otherId, double otherScore) {
+            return score < otherScore || (score == otherScore && id > otherId);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(ids[i], scores[i], ids[parent], scores[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && worse(ids[left], scores[left], ids[worst], scores[worst])) {
+                    worst = left;
+                }
+                if (right < size && worse(ids[right], scores[right], ids[worst], scores[worst])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
@@ -1,3 +1,31 @@
 package main;
-public class HyponymsHandler {
+
+import browser.NgordnetQuery;
+import browser.NgordnetQueryHandler;
+import ngrams.NGramMap;
+import wordnet.CompressedBitmap;
+import wordnet.WordNet;
+
+public class HyponymsHandler extends NgordnetQueryHandler {
+    private final WordNet wordNet;
+    private final HyponymRanker ranker;
+
+    public HyponymsHandler(WordNet wordNet, NGramMap map) {
+        this.wordNet = wordNet;
+        this.ranker = new HyponymRanker(wordNet, map);
+    }
+
+    /**
+     * Returns the hyponyms shared by every word of Q, in alphabetical order. If Q.k() is
+     * positive, only the Q.k() of them with the highest total count between Q.startYear()
+     * and Q.endYear() are kept, leaving out any that never occur in that range.
+     */
+    @Override
+    public String handle(NgordnetQuery q) {
+        if (q.k() <= 0) {
+            return wordNet.hyponyms(q.words()).toString();
+        }
+        CompressedBitmap candidates = wordNet.commonClosure(q.words());
+        return ranker.top(candidates, q.k(), q.startYear(), q.endYear()).toString();
+    }
 }
@@ -1,7 +1,16 @@
 package ngrams;
-import edu.berkeley.eecs.inst.cs61b.ngrams.StaffNGramMap;
 
-import java.util.TreeMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /** An object that provides utility methods for making queries on the
  *  Google NGrams dataset (or a subset thereof).
@@ -10,36 +19,300 @@ import java.util.TreeMap;
  *  file". It is not a map in the strict sense, but it does provide additional
  *  functionality.
  *
- *  This is a stripped-down version of the staff solution for 2A. Feel free
- *  to replace this file with your own implementation.
+ *  The yearly counts of every word live in packed primitive columns: the
+ *  word with id W owns the index range [offsets[W], offsets[W + 1]) of the
+ *  YEARS and COUNTS columns, sorted by year. Summing a word's counts over a
+ *  range of years is a binary search and a loop over a double[], with no
+ *  TreeMap built along the way.
+ *
+ *  The columns are packed the same way as proj2a's HistoryStore.Builder
+ *  packs them, with a counting sort by word, a stable sort by year and a
+ *  pass in which the last row of a repeated year wins. proj2b is built on
+ *  its own, so it has its own copy. Words get their ids from a HashMap
+ *  rather than a WordDictionary, since WordNet queries only ever look up
+ *  whole words.
  *
  *  @author Josh Hug
  */
-public class NGramMap extends StaffNGramMap {
+public class NGramMap {
 
     public static final int MIN_YEAR = 1400;
     public static final int MAX_YEAR = 2100;
 
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final int[] offsets;
+    private final int[] years;
+    private final double[] counts;
+    private final TimeSeries totals = new TimeSeries();
+
     /** Constructs an NGramMap from WORDSFILENAME and COUNTSFILENAME. */
     public NGramMap(String wordsFilename, String countsFilename) {
-        super(wordsFilename, countsFilename);
+        int[] rowWords = new int[1024];
+        int[] rowYears = new int[1024];
+        double[] rowCounts = new double[1024];
+        int rows = 0;
+        try (BufferedReader in = Files.newBufferedReader(Path.of(wordsFilename))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int wordEnd = line.indexOf('\t');
+                int yearEnd = line.indexOf('\t', wordEnd + 1);
+                int countEnd = line.indexOf('\t', yearEnd + 1);
+                if (countEnd < 0) {
+                    countEnd = line.length();
+                }
+                if (rows == rowWords.length) {
+                    rowWords = Arrays.copyOf(rowWords, rows * 2);
+                    rowYears = Arrays.copyOf(rowYears, rows * 2);
+                    rowCounts = Arrays.copyOf(rowCounts, rows * 2);
+                }
+                rowWords[rows] = intern(line.substring(0, wordEnd));
+                rowYears[rows] = Integer.parseInt(line, wordEnd + 1, yearEnd, 10);
+                rowCounts[rows] = Double.parseDouble(line.substring(yearEnd + 1, countEnd));
+                rows += 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + wordsFilename, e);
+        }
+
+        /* Counting sort of the rows by word id. This keeps rows of the same word in file
+         * order, which is what makes "last count wins" work below. */
+        int wordCount = words.size();
+        offsets = new int[wordCount + 1];
+        for (int r = 0; r < rows; r += 1) {
+            offsets[rowWords[r] + 1] += 1;
+        }
+        for (int w = 0; w < wordCount; w += 1) {
+            offsets[w + 1] += offsets[w];
+        }
+        int[] next = Arrays.copyOf(offsets, wordCount);
+        int[] packedYears = new int[rows];
+        double[] packedCounts = new double[rows];
+        for (int r = 0; r < rows; r += 1) {
+            int i = next[rowWords[r]];
+            packedYears[i] = rowYears[r];
+            packedCounts[i] = rowCounts[r];
+            next[rowWords[r]] += 1;
+        }
+        int size = 0;
+        for (int w = 0; w < wordCount; w += 1) {
+            int from = offsets[w];
+            int to = offsets[w + 1];
+            sortByYear(packedYears, packedCounts, from, to);
+            offsets[w] = size;
+            for (int i = from; i < to; i += 1) {
+                if (size > offsets[w] && packedYears[size - 1] == packedYears[i]) {
+                    packedCounts[size - 1] = packedCounts[i];
+                } else {
+                    packedYears[size] = packedYears[i];
+                    packedCounts[size] = packedCounts[i];
+                    size += 1;
+                }
+            }
+        }
+        offsets[wordCount] = size;
+        years = size == rows ? packedYears : Arrays.copyOf(packedYears, size);
+        counts = size == rows ? packedCounts : Arrays.copyOf(packedCounts, size);
+
+        try (BufferedReader in = Files.newBufferedReader(Path.of(countsFilename))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int yearEnd = line.indexOf(',');
+                int countEnd = line.indexOf(',', yearEnd + 1);
+                if (countEnd < 0) {
+                    countEnd = line.length();
+                }
+                totals.put(Integer.parseInt(line, 0, yearEnd, 10),
+                        Double.parseDouble(line.substring(yearEnd + 1, countEnd)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + countsFilename, e);
+        }
     }
 
-    /** Provides the history of WORD between STARTYEAR and ENDYEAR, inclusive. The returned TreeMap should be a copy,
-     *  not a link to the NGramMap's TreeMap. In other words, changes made
+    /** Returns the id of WORD, or -1 if WORD is not in the words file. */
+    public int id(String word) {
+        Integer id = ids.get(word);
+        return id == null ? -1 : id;
+    }
+
+    /** Returns the word with the given ID. */
+    public String word(int id) {
+        return words.get(id);
+    }
+
+    /** Returns the number of distinct words in the words file. */
+    public int wordCount() {
+        return words.size();
+    }
+
+    /** Provides the history of WORD between STARTYEAR and ENDYEAR, inclusive. The returned TimeSeries should be a copy,
+     *  not a link to the NGramMap's TimeSeries. In other words, changes made
      *  to the object returned by this function should not also affect the
      *  NGramMap. This is also known as a "defensive copy". */
-    public TreeMap<Integer, Double> countHistory(String word, int startYear, int endYear) {
-        return super.countHistory(word, startYear, endYear);
+    public TimeSeries countHistory(String word, int startYear, int endYear) {
+        int id = id(word);
+        if (id < 0 || startYear > endYear) {
+            return new TimeSeries();
+        }
+        return new TimeSeries(years, counts, firstIndex(id, startYear), endIndex(id, endYear));
     }
 
-    /** Provides the history of WORD. The returned TreeMap should be a copy,
-     *  not a link to the NGramMap's TreeMap. In other words, changes made
+    /** Provides the history of WORD. The returned TimeSeries should be a copy,
+     *  not a link to the NGramMap's TimeSeries. In other words, changes made
      *  to the object returned by this function should not also affect the
      *  NGramMap. This is also known as a "defensive copy". */
-    public TreeMap<Integer, Double> countHistory(String word) {
+    public TimeSeries countHistory(String word) {
         return countHistory(word, MIN_YEAR, MAX_YEAR);
     }
 
-    // TODO: Replace this file with your own implementation if you want all the methods of an NGramMap
+    /** Returns a defensive copy of the total number of words recorded per year in all volumes. */
+    public TimeSeries totalCountHistory() {
+        TimeSeries copy = new TimeSeries();
+        copy.putAll(totals);
+        return copy;
+    }
+
+    /** Provides a TimeSeries containing the relative frequency per year of WORD between
+     *  STARTYEAR and ENDYEAR, inclusive of both ends. If WORD is not in the words file,
+     *  returns an empty TimeSeries. */
+    public TimeSeries weightHistory(String word, int startYear, int endYear) {
+        TimeSeries history = new TimeSeries();
+        int id = id(word);
+        if (id < 0 || startYear > endYear) {
+            return history;
+        }
+        for (int i = firstIndex(id, startYear); i < endIndex(id, endYear); i += 1) {
+            history.put(years[i], counts[i] / total(years[i]));
+        }
+        return history;
+    }
+
+    /** Provides a TimeSeries containing the relative frequency per year of WORD. If WORD is
+     *  not in the words file, returns an empty TimeSeries. */
+    public TimeSeries weightHistory(String word) {
+        return weightHistory(word, MIN_YEAR, MAX_YEAR);
+    }
+
+    /** Provides the summed relative frequency per year of all words in WORDS between
+     *  STARTYEAR and ENDYEAR, inclusive of both ends. Words that are not in the words file
+     *  are ignored rather than throwing an exception. */
+    public TimeSeries summedWeightHistory(Collection<String> words, int startYear, int endYear) {
+        TimeSeries sum = new TimeSeries();
+        if (startYear > endYear) {
+            return sum;
+        }
+        for (String word : words) {
+            int id = id(word);
+            if (id < 0) {
+                continue;
+            }
+            for (int i = firstIndex(id, startYear); i < endIndex(id, endYear); i += 1) {
+                sum.merge(years[i], counts[i] / total(years[i]), Double::sum);
+            }
+        }
+        return sum;
+    }
+
+    /** Returns the summed relative frequency per year of all words in WORDS. Words that are
+     *  not in the words file are ignored rather than throwing an exception. */
+    public TimeSeries summedWeightHistory(Collection<String> words) {
+        return summedWeightHistory(words, MIN_YEAR, MAX_YEAR);
+    }
+
+    /**
+     * Returns the sum of the counts of the word with the given ID between STARTYEAR and
+     * ENDYEAR, inclusive, read straight from the packed columns.
+     */
+    public double totalCount(int id, int startYear, int endYear) {
+        int end = offsets[id + 1];
+        if (offsets[id] == end || years[offsets[id]] > endYear || years[end - 1] < startYear) {
+            return 0.0;
+        }
+        double total = 0.0;
+        for (int i = firstIndex(id, startYear); i < end && years[i] <= endYear; i += 1) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the sum of the counts of WORD between STARTYEAR and ENDYEAR, inclusive, or 0.0
+     * if WORD is not in the words file.
+     */
+    public double totalCount(String word, int startYear, int endYear) {
+        int id = id(word);
+        return id < 0 ? 0.0 : totalCount(id, startYear, endYear);
+    }
+
+    /** Returns the first column index of the word with the given ID whose year is at least YEAR. */
+    private int firstIndex(int id, int year) {
+        int lo = offsets[id];
+        int hi = offsets[id + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (years[mid] < year) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Returns the column index just past the last year of the word with the given ID that
+     *  is at most YEAR. */
+    private int endIndex(int id, int year) {
+        return year == Integer.MAX_VALUE ? offsets[id + 1] : firstIndex(id, year + 1);
+    }
+
+    /** Returns the total count of YEAR, or throws an IllegalArgumentException if the counts
+     *  file does not have one. */
+    private double total(int year) {
+        Double total = totals.get(year);
+        if (total == null) {
+            throw new IllegalArgumentException("Total counts are missing year " + year);
+        }
+        return total;
+    }
+
+    private int intern(String word) {
+        Integer id = ids.get(word);
+        if (id == null) {
+            id = words.size();
+            ids.put(word, id);
+            words.add(word);
+        }
+        return id;
+    }
+
+    /**
+     * Stably sorts YEARS[FROM, TO) ascending, moving COUNTS along with it. Input files
+     * are almost always already sorted, so that case is checked for first.
+     */
+    private static void sortByYear(int[] years, double[] counts, int from, int to) {
+        boolean sorted = true;
+        for (int i = from + 1; i < to && sorted; i += 1) {
+            sorted = years[i - 1] <= years[i];
+        }
+        if (sorted) {
+            return;
+        }
+
+        /* Pack (year, original position) into one long so that a plain sort is stable. */
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i += 1) {
+            keys[i - from] = ((long) years[i] << 32) | (i - from);
+        }
+        Arrays.sort(keys);
+        double[] original = Arrays.copyOfRange(counts, from, to);
+        for (int i = 0; i < keys.length; i += 1) {
+            years[from + i] = (int) (keys[i] >> 32);
+            counts[from + i] = original[(int) keys[i]];
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package ngrams;
+
+import java.util.*;
+
+/**
+ * An object for mapping a year number (e.g. 1996) to numerical data. Provides
+ * utility methods useful for data analysis.
+ *
+ * @author Josh Hug
+ */
+public class TimeSeries extends TreeMap<Integer, Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** If it helps speed up your code, you can assume year arguments to your NGramMap
+     * are between 1400 and 2100. We've stored these values as the constants
+     * MIN_YEAR and MAX_YEAR here. */
+    public static final int MIN_YEAR = 1400;
+    public static final int MAX_YEAR = 2100;
+
+    /**
+     * Constructs a new empty TimeSeries.
+     */
+    public TimeSeries() {
+        super();
+    }
+
+    /**
+     * Creates a copy of TS, but only between STARTYEAR and ENDYEAR,
+     * inclusive of both end points.
+     */
+    public TimeSeries(TimeSeries ts, int startYear, int endYear) {
+        super(startYear > endYear ? new TreeMap<>() : ts.subMap(startYear, true, endYear, true));
+    }
+
+    /**
+     * Creates a TimeSeries from the column slices YEARS[FROM, TO) and DATA[FROM, TO).
+     */
+    TimeSeries(int[] years, double[] data, int from, int to) {
+        super(slice(years, data, from, to));
+    }
+
+    private static SortedMap<Integer, Double> slice(int[] years, double[] data, int from, int to) {
+        TreeMap<Integer, Double> map = new TreeMap<>();
+        for (int i = from; i < to; i += 1) {
+            map.put(years[i], data[i]);
+        }
+        return map;
+    }
+
+    /**
+     *  Returns all years for this time series in ascending order.
+     */
+    public List<Integer> years() {
+        return new ArrayList<>(this.keySet());
+    }
+
+    /**
+     *  Returns all data for this time series. Must correspond to the
+     *  order of years().
+     */
+    public List<Double> data() {
+        return new ArrayList<>(this.values());
+    }
+
+    /**
+     * Returns the year-wise sum of this TimeSeries with the given TS. In other words, for
+     * each year, sum the data from this TimeSeries with the data from TS. Should return a
+     * new TimeSeries (does not modify this TimeSeries).
+     *
+     * If both TimeSeries don't contain any years, return an empty TimeSeries.
+     * If one TimeSeries contains a year that the other one doesn't, the returned TimeSeries
+     * should store the value from the TimeSeries that contains that year.
+     */
+    public TimeSeries plus(TimeSeries ts) {
+        Set<Integer> years = new HashSet<>(this.keySet());
+        years.addAll(ts.keySet());
+        TimeSeries result = new TimeSeries();
+
+        for (Integer year : years) {
+            if (!this.containsKey(year)) {
+                if (ts.containsKey(year)) {
+                    result.put(year, ts.get(year));
+                }
+            } else if (!ts.containsKey(year)) {
+                result.put(year, this.get(year));
+            } else {
+                result.put(year, this.get(year) + ts.get(year));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the quotient of the value for each year this TimeSeries divided by the
+     * value for the same year in TS. Should return a new TimeSeries (does not modify this
+     * TimeSeries).
+     *
+     * If TS is missing a year that exists in this TimeSeries, throw an
+     * IllegalArgumentException.
+     * If TS has a year that is not in this TimeSeries, ignore it.
+     */
+    public TimeSeries dividedBy(TimeSeries ts) {
+        TimeSeries result = new TimeSeries();
+
+        for (int year : this.keySet()) {
+            if (!ts.containsKey(year)) {
+                throw new IllegalArgumentException("除数 TimeSeries 缺少了年份: " + year);
+            }
+
+            double quotient = this.get(year) / ts.get(year);
+            result.put(year, quotient);
+        }
+
+        return result;
+    }
+}
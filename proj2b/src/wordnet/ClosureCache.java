@@ -0,0 +1,115 @@
+package wordnet;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A least-recently-used cache of hyponym closures keyed by synset id, holding each closure
+ * as the CompressedBitmap of the word ids it reaches. The cache never holds more than its
+ * byte budget, as measured by CompressedBitmap.sizeInBytes; a closure bigger than the whole
+ * budget is never cached.
+ *
+ * get counts as a use and moves the closure to the back of the eviction order. peek is a
+ * lock-free lookup that does not, meant for the many lookups a graph search makes while it
+ * looks for cached closures of the synsets below the one it is computing.
+ */
+public class ClosureCache {
+
+    private final long budgetBytes;
+    /** The cached closure of each synset, or null; mirrors LRU for lock-free reads. */
+    private final AtomicReferenceArray<CompressedBitmap> slots;
+    /** The cached closures in least to most recently used order. Guarded by this. */
+    private final LinkedHashMap<Integer, CompressedBitmap> lru =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** Creates an empty cache for SYNSETCOUNT synsets that holds at most BUDGETBYTES bytes. */
+    public ClosureCache(int synsetCount, long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("Budget must not be negative");
+        }
+        this.budgetBytes = budgetBytes;
+        this.slots = new AtomicReferenceArray<>(synsetCount);
+    }
+
+    /** Returns the cached closure of SYNSET, or null if it is not cached. */
+    public synchronized CompressedBitmap get(int synset) {
+        CompressedBitmap closure = lru.get(synset);
+        if (closure == null) {
+            misses += 1;
+        } else {
+            hits += 1;
+        }
+        return closure;
+    }
+
+    /** Returns the cached closure of SYNSET, or null, without counting it as a use. */
+    public CompressedBitmap peek(int synset) {
+        return slots.get(synset);
+    }
+
+    /**
+     * Caches CLOSURE as the closure of SYNSET, evicting the least recently used closures
+     * until the cache is back within its budget.
+     */
+    public synchronized void put(int synset, CompressedBitmap closure) {
+        long size = closure.sizeInBytes();
+        if (size > budgetBytes) {
+            return;
+        }
+        CompressedBitmap old = lru.put(synset, closure);
+        if (old != null) {
+            bytes -= old.sizeInBytes();
+        }
+        slots.set(synset, closure);
+        bytes += size;
+
+        Iterator<Map.Entry<Integer, CompressedBitmap>> eldest = lru.entrySet().iterator();
+        while (bytes > budgetBytes) {
+            Map.Entry<Integer, CompressedBitmap> entry = eldest.next();
+            slots.set(entry.getKey(), null);
+            bytes -= entry.getValue().sizeInBytes();
+            eldest.remove();
+            evictions += 1;
+        }
+    }
+
+    /** Removes every closure from the cache. */
+    public synchronized void clear() {
+        for (int synset : lru.keySet()) {
+            slots.set(synset, null);
+        }
+        lru.clear();
+        bytes = 0;
+    }
+
+    /** Returns the number of closures in the cache. */
+    public synchronized int size() {
+        return lru.size();
+    }
+
+    /** Returns the number of bytes the cached closures occupy. */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /** Returns the number of calls to get that found a closure. */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /** Returns the number of calls to get that found nothing. */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /** Returns the number of closures evicted to stay within the budget. */
+    public synchronized long evictions() {
+        return evictions;
+    }
+}
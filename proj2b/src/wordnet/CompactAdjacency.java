@@ -0,0 +1,103 @@
+package wordnet;
+
+import java.util.Arrays;
+
+/**
+ * An immutable mapping from every int 0 to N - 1 to a list of ints, stored in compressed
+ * sparse row form: the list of key K is the index range [offsets[K], offsets[K + 1]) of a
+ * single values array. Two int[] arrays hold the whole structure, so walking a list is a
+ * tight loop over primitives with no per-key objects to chase.
+ *
+ * WordNet uses one of these for each of its relations: synset to hyponym synsets, synset
+ * to words, and word to synsets.
+ */
+public class CompactAdjacency {
+
+    private final int[] offsets;
+    private final int[] values;
+
+    /**
+     * Creates the mapping in which the list of key K is VALUES[OFFSETS[K], OFFSETS[K + 1]).
+     */
+    CompactAdjacency(int[] offsets, int[] values) {
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /**
+     * Returns the mapping over keys 0 to KEYCOUNT - 1 holding the first PAIRCOUNT pairs
+     * (KEYS[i], VALUES[i]). Each list keeps its values in the order they were given, and
+     * duplicates are kept.
+     */
+    static CompactAdjacency fromPairs(int keyCount, int[] keys, int[] values, int pairCount) {
+        int[] offsets = new int[keyCount + 1];
+        for (int i = 0; i < pairCount; i += 1) {
+            offsets[keys[i] + 1] += 1;
+        }
+        for (int k = 0; k < keyCount; k += 1) {
+            offsets[k + 1] += offsets[k];
+        }
+        int[] next = Arrays.copyOf(offsets, keyCount);
+        int[] packed = new int[pairCount];
+        for (int i = 0; i < pairCount; i += 1) {
+            packed[next[keys[i]]] = values[i];
+            next[keys[i]] += 1;
+        }
+        return new CompactAdjacency(offsets, packed);
+    }
+
+    /**
+     * Returns the reverse mapping over keys 0 to VALUECOUNT - 1, in which the list of V
+     * holds every key whose list holds V, in ascending order.
+     */
+    CompactAdjacency reverse(int valueCount) {
+        int[] keys = new int[values.length];
+        for (int k = 0; k < keyCount(); k += 1) {
+            Arrays.fill(keys, offsets[k], offsets[k + 1], k);
+        }
+        return fromPairs(valueCount, values, keys, values.length);
+    }
+
+    /**
+     * Returns this mapping over keys 0 to KEYCOUNT - 1, which must be at least keyCount(),
+     * with an empty list for every key added.
+     */
+    CompactAdjacency withKeyCount(int keyCount) {
+        if (keyCount == keyCount()) {
+            return this;
+        }
+        int[] longer = Arrays.copyOf(offsets, keyCount + 1);
+        Arrays.fill(longer, offsets.length, keyCount + 1, values.length);
+        return new CompactAdjacency(longer, values);
+    }
+
+    /** Returns the number of keys. */
+    public int keyCount() {
+        return offsets.length - 1;
+    }
+
+    /** Returns the total length of all the lists. */
+    public int size() {
+        return values.length;
+    }
+
+    /** Returns the index of the first value in the list of KEY. */
+    public int start(int key) {
+        return offsets[key];
+    }
+
+    /** Returns one past the index of the last value in the list of KEY. */
+    public int end(int key) {
+        return offsets[key + 1];
+    }
+
+    /** Returns the length of the list of KEY. */
+    public int degree(int key) {
+        return offsets[key + 1] - offsets[key];
+    }
+
+    /** Returns the value at index I, where I lies between start(K) and end(K) for some K. */
+    public int value(int i) {
+        return values[i];
+    }
+}
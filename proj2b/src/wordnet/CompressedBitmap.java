@@ -0,0 +1,298 @@
+package wordnet;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable set of non-negative ints stored as a compressed bitmap: only the 64-bit words
+ * of the plain bitmap that have a bit set are kept, each alongside its index. A hyponym
+ * closure touches a small, clustered part of the word id space, so most of the plain bitmap
+ * is zero and this form is many times smaller.
+ *
+ * OR is a merge over the two sorted index arrays, so it runs in time proportional to the
+ * stored words rather than to the size of the id space. AND adapts to the sizes of its
+ * operands: sets of similar size are merged, but when one set stores far fewer words than
+ * the other, each of its words is found in the larger set by a galloping search, so that
+ * intersecting a narrow closure with a broad one costs little more than the narrow one.
+ */
+public final class CompressedBitmap {
+
+    /**
+     * AND gallops instead of merging once one operand stores this many times as many words
+     * as the other.
+     */
+    static final int GALLOP_RATIO = 16;
+
+    /** The empty set. */
+    public static final CompressedBitmap EMPTY = new CompressedBitmap(new int[0], new long[0]);
+
+    /** Indexes of the non-zero 64-bit words, ascending. */
+    private final int[] keys;
+    /** The non-zero 64-bit words, in the same order as KEYS. */
+    private final long[] words;
+    private final int cardinality;
+
+    private CompressedBitmap(int[] keys, long[] words) {
+        this.keys = keys;
+        this.words = words;
+        int count = 0;
+        for (long w : words) {
+            count += Long.bitCount(w);
+        }
+        this.cardinality = count;
+    }
+
+    /** Returns the set of bits that are set in the plain bitmap DENSE. */
+    public static CompressedBitmap fromDense(long[] dense) {
+        int n = 0;
+        for (long w : dense) {
+            if (w != 0) {
+                n += 1;
+            }
+        }
+        int[] keys = new int[n];
+        long[] words = new long[n];
+        int j = 0;
+        for (int i = 0; i < dense.length; i += 1) {
+            if (dense[i] != 0) {
+                keys[j] = i;
+                words[j] = dense[i];
+                j += 1;
+            }
+        }
+        return new CompressedBitmap(keys, words);
+    }
+
+    /**
+     * Returns the set of bits that are set in the plain bitmap DENSE, whose non-zero words
+     * are exactly those at the first N indexes in SLOTS, and clears those words of DENSE.
+     * Unlike fromDense, this takes time proportional to N rather than to the length of DENSE.
+     * Sorts the first N indexes in SLOTS.
+     */
+    static CompressedBitmap drain(long[] dense, int[] slots, int n) {
+        if (n == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(slots, 0, n);
+        int[] keys = Arrays.copyOf(slots, n);
+        long[] words = new long[n];
+        for (int i = 0; i < n; i += 1) {
+            words[i] = dense[keys[i]];
+            dense[keys[i]] = 0L;
+        }
+        return new CompressedBitmap(keys, words);
+    }
+
+    /** Returns the set holding each of BITS. */
+    public static CompressedBitmap of(int... bits) {
+        int max = -1;
+        for (int bit : bits) {
+            max = Math.max(max, bit);
+        }
+        long[] dense = new long[(max + 64) >>> 6];
+        for (int bit : bits) {
+            dense[bit >>> 6] |= 1L << bit;
+        }
+        return fromDense(dense);
+    }
+
+    /** Returns the number of ints in this set. */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /** Returns whether this set is empty. */
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /** Returns whether BIT is in this set. */
+    public boolean contains(int bit) {
+        int i = Arrays.binarySearch(keys, bit >>> 6);
+        return i >= 0 && (words[i] & (1L << bit)) != 0;
+    }
+
+    /** Returns the intersection of this set and OTHER. */
+    public CompressedBitmap and(CompressedBitmap other) {
+        if (keys.length > other.keys.length) {
+            return other.and(this);
+        }
+        if ((long) keys.length * GALLOP_RATIO <= other.keys.length) {
+            return gallopingAnd(other);
+        }
+        int n = keys.length;
+        int[] outKeys = new int[n];
+        long[] outWords = new long[n];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i += 1;
+            } else if (keys[i] > other.keys[j]) {
+                j += 1;
+            } else {
+                long w = words[i] & other.words[j];
+                if (w != 0) {
+                    outKeys[size] = keys[i];
+                    outWords[size] = w;
+                    size += 1;
+                }
+                i += 1;
+                j += 1;
+            }
+        }
+        return trimmed(outKeys, outWords, size);
+    }
+
+    /** Returns the intersection of this set and OTHER, which stores many more words. */
+    private CompressedBitmap gallopingAnd(CompressedBitmap other) {
+        int[] outKeys = new int[keys.length];
+        long[] outWords = new long[keys.length];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < keys.length && j < other.keys.length; i += 1) {
+            j = gallop(other.keys, j, keys[i]);
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                long w = words[i] & other.words[j];
+                if (w != 0) {
+                    outKeys[size] = keys[i];
+                    outWords[size] = w;
+                    size += 1;
+                }
+            }
+        }
+        return trimmed(outKeys, outWords, size);
+    }
+
+    /**
+     * Returns the first index at or after FROM at which the ascending array A holds a value
+     * of at least KEY, or A.length if there is none. Probes FROM + 1, FROM + 2, FROM + 4 and
+     * so on before a binary search, so the cost grows with the log of the distance moved.
+     */
+    private static int gallop(int[] a, int from, int key) {
+        if (from >= a.length || a[from] >= key) {
+            return from;
+        }
+        /* a[lo] < key throughout. */
+        int lo = from;
+        int step = 1;
+        while (lo + step < a.length && a[lo + step] < key) {
+            lo += step;
+            step <<= 1;
+        }
+        int hi = Math.min(lo + step, a.length);
+        while (lo + 1 < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return hi;
+    }
+
+    /** Returns the union of this set and OTHER. */
+    public CompressedBitmap or(CompressedBitmap other) {
+        int[] outKeys = new int[keys.length + other.keys.length];
+        long[] outWords = new long[outKeys.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                outKeys[size] = keys[i];
+                outWords[size] = words[i];
+                i += 1;
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                outKeys[size] = other.keys[j];
+                outWords[size] = other.words[j];
+                j += 1;
+            } else {
+                outKeys[size] = keys[i];
+                outWords[size] = words[i] | other.words[j];
+                i += 1;
+                j += 1;
+            }
+            size += 1;
+        }
+        return trimmed(outKeys, outWords, size);
+    }
+
+    /** Sets every bit of this set in the plain bitmap DENSE, which must be large enough. */
+    public void orInto(long[] dense) {
+        for (int i = 0; i < keys.length; i += 1) {
+            dense[keys[i]] |= words[i];
+        }
+    }
+
+    /**
+     * Sets every bit of this set in the plain bitmap DENSE like orInto, and records in SLOTS,
+     * from index N on, the index of each word of DENSE that was zero until now. Returns the
+     * new number of indexes in SLOTS.
+     */
+    int orInto(long[] dense, int[] slots, int n) {
+        for (int i = 0; i < keys.length; i += 1) {
+            if (dense[keys[i]] == 0) {
+                slots[n] = keys[i];
+                n += 1;
+            }
+            dense[keys[i]] |= words[i];
+        }
+        return n;
+    }
+
+    /** Calls ACTION on every int in this set, in ascending order. */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i += 1) {
+            long bits = words[i];
+            while (bits != 0) {
+                action.accept((keys[i] << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /** Returns the ints in this set in ascending order. */
+    public int[] toArray() {
+        int[] result = new int[cardinality];
+        int n = 0;
+        for (int i = 0; i < keys.length; i += 1) {
+            long bits = words[i];
+            while (bits != 0) {
+                result[n] = (keys[i] << 6) + Long.numberOfTrailingZeros(bits);
+                n += 1;
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    /** Returns roughly how many bytes of heap this set occupies. */
+    public long sizeInBytes() {
+        /* Object and array headers, then the two arrays' contents. */
+        return 48 + (long) keys.length * Integer.BYTES + (long) words.length * Long.BYTES;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompressedBitmap other
+                && Arrays.equals(keys, other.keys) && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(words);
+    }
+
+    private static CompressedBitmap trimmed(int[] keys, long[] words, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        if (size == keys.length) {
+            return new CompressedBitmap(keys, words);
+        }
+        return new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(words, size));
+    }
+}
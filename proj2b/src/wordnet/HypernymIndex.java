@@ -0,0 +1,293 @@
+package wordnet;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Answers hypernym queries over the WordNet DAG: depths, ancestors, and the shortest
+ * ancestral path between two sets of synsets.
+ *
+ * The index keeps the hypernym edges as a CompactAdjacency (the hyponym edges reversed) and
+ * the depth of every synset, its shortest distance from a root. Each synset's primary
+ * hypernym is its lowest-id hypernym one level closer to a root, and the primary hypernyms
+ * form a spanning tree of the DAG with a binary lifting table over it, so the tree's lowest
+ * common ancestor of two synsets takes O(log depth) steps.
+ *
+ * WordNet lets a synset have several hypernyms, so the tree answer is only an upper bound on
+ * the real shortest ancestral path. shortestPath searches upwards from both ends and stops
+ * at that bound, which keeps the search to the few synsets near the two ends rather than
+ * the whole graph.
+ */
+public class HypernymIndex {
+
+    private final CompactAdjacency hypernyms;
+    private final int[] depths;
+    /** up[J][S] is the 2^J-th primary ancestor of S; a root is its own ancestor. */
+    private final int[][] up;
+    private final ThreadLocal<Scratch> scratch;
+
+    /** Builds the index for the DAG whose edges go from each synset to HYPONYMS of it. */
+    HypernymIndex(CompactAdjacency hyponyms) {
+        int n = hyponyms.keyCount();
+        this.hypernyms = hyponyms.reverse(n);
+        this.depths = depths(hyponyms, hypernyms);
+
+        int levels = 1;
+        int maxDepth = 0;
+        for (int d : depths) {
+            maxDepth = Math.max(maxDepth, d);
+        }
+        while ((1 << levels) <= maxDepth) {
+            levels += 1;
+        }
+        up = new int[levels][n];
+        for (int s = 0; s < n; s += 1) {
+            up[0][s] = s;
+            for (int i = hypernyms.start(s); i < hypernyms.end(s); i += 1) {
+                int parent = hypernyms.value(i);
+                if (depths[parent] == depths[s] - 1) {
+                    up[0][s] = parent;
+                    break;
+                }
+            }
+        }
+        for (int j = 1; j < levels; j += 1) {
+            for (int s = 0; s < n; s += 1) {
+                up[j][s] = up[j - 1][up[j - 1][s]];
+            }
+        }
+        scratch = ThreadLocal.withInitial(() -> new Scratch(n));
+    }
+
+    /** Returns the length of the shortest hypernym path from SYNSET to a root. */
+    public int depth(int synset) {
+        return depths[synset];
+    }
+
+    /** Returns the primary hypernym of SYNSET, or -1 if SYNSET is a root. */
+    public int parent(int synset) {
+        int parent = up[0][synset];
+        return parent == synset ? -1 : parent;
+    }
+
+    /** Returns the direct hypernyms of SYNSET. */
+    public int[] hypernyms(int synset) {
+        int[] result = new int[hypernyms.degree(synset)];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = hypernyms.value(hypernyms.start(synset) + i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the primary ancestor STEPS levels above SYNSET, or the root above SYNSET if
+     * STEPS is at least its depth.
+     */
+    public int ancestor(int synset, int steps) {
+        steps = Math.min(steps, depths[synset]);
+        for (int j = 0; steps != 0; j += 1) {
+            if ((steps & 1) != 0) {
+                synset = up[j][synset];
+            }
+            steps >>>= 1;
+        }
+        return synset;
+    }
+
+    /**
+     * Returns the lowest common ancestor of U and V in the tree of primary hypernyms, or -1
+     * if they lie under different roots. The result is always a common hypernym of U and V
+     * in the DAG, though not necessarily the nearest one.
+     */
+    public int treeLca(int u, int v) {
+        if (depths[u] < depths[v]) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        u = ancestor(u, depths[u] - depths[v]);
+        if (u == v) {
+            return u;
+        }
+        for (int j = up.length - 1; j >= 0; j -= 1) {
+            if (up[j][u] != up[j][v]) {
+                u = up[j][u];
+                v = up[j][v];
+            }
+        }
+        return up[0][u] == up[0][v] && up[0][u] != u ? up[0][u] : -1;
+    }
+
+    /**
+     * Returns the shortest ancestral path between any synset of FROM and any synset of TO:
+     * the shortest path that climbs hypernym edges from a synset of FROM to a common
+     * ancestor and then descends to a synset of TO. Returns null if they have no common
+     * ancestor.
+     */
+    public AncestralPath shortestPath(int[] from, int[] to) {
+        if (from.length == 0 || to.length == 0) {
+            return null;
+        }
+        int bound = Integer.MAX_VALUE;
+        for (int u : from) {
+            for (int v : to) {
+                int lca = treeLca(u, v);
+                if (lca >= 0) {
+                    bound = Math.min(bound, depths[u] + depths[v] - 2 * depths[lca]);
+                }
+            }
+        }
+
+        Scratch s = scratch.get();
+        try {
+            s.fromEnd.search(from, bound);
+            s.toEnd.search(to, bound);
+            int length = Integer.MAX_VALUE;
+            int ancestorCount = 0;
+            int[] ancestors = s.ancestors;
+            for (int i = 0; i < s.toEnd.visitedCount; i += 1) {
+                int synset = s.toEnd.visited[i];
+                if (s.fromEnd.distance[synset] < 0) {
+                    continue;
+                }
+                int total = s.fromEnd.distance[synset] + s.toEnd.distance[synset];
+                if (total < length) {
+                    length = total;
+                    ancestorCount = 0;
+                }
+                if (total == length) {
+                    ancestors[ancestorCount] = synset;
+                    ancestorCount += 1;
+                }
+            }
+            if (ancestorCount == 0) {
+                return null;
+            }
+            int[] common = Arrays.copyOf(ancestors, ancestorCount);
+            Arrays.sort(common);
+            return new AncestralPath(length, common, path(s, common[0], length));
+        } finally {
+            s.fromEnd.clear();
+            s.toEnd.clear();
+        }
+    }
+
+    /** Returns the synsets on the path through ANCESTOR found by the last search in S. */
+    private static int[] path(Scratch s, int ancestor, int length) {
+        int[] path = new int[length + 1];
+        int upLength = s.fromEnd.distance[ancestor];
+        for (int i = upLength, synset = ancestor; i >= 0; i -= 1) {
+            path[i] = synset;
+            synset = s.fromEnd.previous[synset];
+        }
+        for (int i = upLength, synset = ancestor; i <= length; i += 1) {
+            path[i] = synset;
+            synset = s.toEnd.previous[synset];
+        }
+        return path;
+    }
+
+    /**
+     * Returns each synset's shortest distance from a root, by a breadth-first search down
+     * HYPONYMS from every synset that has no HYPERNYMS. Synsets that no root reaches, which
+     * only a cycle could cause, count as roots themselves.
+     */
+    private static int[] depths(CompactAdjacency hyponyms, CompactAdjacency hypernyms) {
+        int n = hyponyms.keyCount();
+        int[] depths = new int[n];
+        Arrays.fill(depths, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int s = 0; s < n; s += 1) {
+            if (hypernyms.degree(s) == 0) {
+                depths[s] = 0;
+                queue.add(s);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int i = hyponyms.start(s); i < hyponyms.end(s); i += 1) {
+                int next = hyponyms.value(i);
+                if (depths[next] < 0) {
+                    depths[next] = depths[s] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        for (int s = 0; s < n; s += 1) {
+            if (depths[s] < 0) {
+                depths[s] = 0;
+            }
+        }
+        return depths;
+    }
+
+    /**
+     * A shortest ancestral path of the given LENGTH, counted in edges. ANCESTORS holds, in
+     * ascending order, every common ancestor that some path of that length passes through,
+     * and PATH lists the synsets along one of those paths, from the first end to the other,
+     * through the first of ANCESTORS.
+     */
+    public record AncestralPath(int length, int[] ancestors, int[] path) {}
+
+    /** A breadth-first search up the hypernym edges, reusable across queries. */
+    private class Search {
+        final int[] distance;
+        final int[] previous;
+        final int[] visited;
+        int visitedCount;
+
+        Search(int n) {
+            distance = new int[n];
+            previous = new int[n];
+            visited = new int[n];
+            Arrays.fill(distance, -1);
+        }
+
+        /** Visits every ancestor of SOURCES, themselves included, at most BOUND edges up. */
+        void search(int[] sources, int bound) {
+            for (int source : sources) {
+                if (distance[source] < 0) {
+                    distance[source] = 0;
+                    previous[source] = -1;
+                    visited[visitedCount] = source;
+                    visitedCount += 1;
+                }
+            }
+            for (int head = 0; head < visitedCount; head += 1) {
+                int synset = visited[head];
+                if (distance[synset] >= bound) {
+                    continue;
+                }
+                for (int i = hypernyms.start(synset); i < hypernyms.end(synset); i += 1) {
+                    int next = hypernyms.value(i);
+                    if (distance[next] < 0) {
+                        distance[next] = distance[synset] + 1;
+                        previous[next] = synset;
+                        visited[visitedCount] = next;
+                        visitedCount += 1;
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < visitedCount; i += 1) {
+                distance[visited[i]] = -1;
+            }
+            visitedCount = 0;
+        }
+    }
+
+    /** The searches one thread reuses across queries. */
+    private class Scratch {
+        final Search fromEnd;
+        final Search toEnd;
+        final int[] ancestors;
+
+        Scratch(int n) {
+            fromEnd = new Search(n);
+            toEnd = new Search(n);
+            ancestors = new int[n];
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package wordnet;
+
+import java.util.Arrays;
+
+/**
+ * A precomputed reachability index over the hyponym DAG, by interval labeling.
+ *
+ * A depth-first search numbers the synsets in preorder, so that each synset's subtree in the
+ * search's spanning tree is one contiguous range of positions. A synset's label is the list
+ * of position ranges, merged and sorted, that covers everything reachable from it: its own
+ * subtree plus whatever the DAG's other edges lead to outside of it. Since WordNet is nearly
+ * a tree, most labels are a single range. Whether one synset reaches another is then a
+ * binary search in a label, and walking a closure is a loop over ranges of a plain int[],
+ * with no queue and no visited set.
+ *
+ * Labels made of many ranges cost memory, so only synsets whose label has at most
+ * MAXINTERVALS ranges are labeled; the others report isLabeled false and are left to a
+ * graph search. Raising MAXINTERVALS trades memory for fewer searches.
+ */
+public class ReachabilityIndex {
+
+    /** The synset at each preorder position. */
+    private final int[] order;
+    /** The preorder position of each synset. */
+    private final int[] position;
+    /** The label of synset S is ranges [offsets[S], offsets[S + 1]) of FROM and TO. */
+    private final int[] offsets;
+    private final int[] from;
+    private final int[] to;
+    private final long[] labeled;
+    private final int labeledCount;
+
+    /**
+     * Builds the index for the DAG whose edges go from each synset to HYPONYMS of it,
+     * labeling every synset whose label has at most MAXINTERVALS ranges.
+     */
+    ReachabilityIndex(CompactAdjacency hyponyms, int maxIntervals) {
+        int n = hyponyms.keyCount();
+        order = new int[n];
+        position = new int[n];
+        int[] subtreeEnd = new int[n];
+        int[] finished = depthFirst(hyponyms, subtreeEnd);
+
+        /* Label every synset after all of its hyponyms, in the search's finishing order. A
+         * synset on a cycle can be finished before one of its hyponyms; such a synset and
+         * everything above it stay unlabeled. */
+        int[][] labels = new int[n][];
+        long[] ranges = new long[16];
+        for (int s : finished) {
+            int count = 0;
+            ranges[count] = pack(position[s], subtreeEnd[s]);
+            count += 1;
+            boolean known = true;
+            for (int i = hyponyms.start(s); i < hyponyms.end(s); i += 1) {
+                int[] label = labels[hyponyms.value(i)];
+                if (label == null) {
+                    known = false;
+                    break;
+                }
+                for (int r = 0; r < label.length; r += 2) {
+                    /* Ranges inside this synset's own subtree add nothing. */
+                    if (label[r] >= position[s] && label[r + 1] <= subtreeEnd[s]) {
+                        continue;
+                    }
+                    if (count == ranges.length) {
+                        ranges = Arrays.copyOf(ranges, count * 2);
+                    }
+                    ranges[count] = pack(label[r], label[r + 1]);
+                    count += 1;
+                }
+            }
+            if (known) {
+                labels[s] = merge(ranges, count);
+            }
+        }
+
+        offsets = new int[n + 1];
+        labeled = new long[(n + 63) >>> 6];
+        int kept = 0;
+        int total = 0;
+        for (int s = 0; s < n; s += 1) {
+            if (labels[s] != null && labels[s].length / 2 <= maxIntervals) {
+                labeled[s >>> 6] |= 1L << s;
+                kept += 1;
+                total += labels[s].length / 2;
+            }
+            offsets[s + 1] = total;
+        }
+        labeledCount = kept;
+        from = new int[total];
+        to = new int[total];
+        for (int s = 0; s < n; s += 1) {
+            if (isLabeled(s)) {
+                for (int r = 0; r < labels[s].length; r += 2) {
+                    from[offsets[s] + r / 2] = labels[s][r];
+                    to[offsets[s] + r / 2] = labels[s][r + 1];
+                }
+            }
+        }
+    }
+
+    /** Returns whether SYNSET has a label, so that reaches and the range methods apply. */
+    public boolean isLabeled(int synset) {
+        return (labeled[synset >>> 6] & (1L << synset)) != 0;
+    }
+
+    /** Returns the number of labeled synsets. */
+    public int labeledCount() {
+        return labeledCount;
+    }
+
+    /**
+     * Returns whether TARGET is SOURCE or a hyponym of it, directly or indirectly. SOURCE
+     * must be labeled.
+     */
+    public boolean reaches(int source, int target) {
+        int p = position[target];
+        int lo = offsets[source];
+        int hi = offsets[source + 1];
+        /* Find the last range that starts at or before P. */
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (from[mid] <= p) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo > offsets[source] && p < to[lo - 1];
+    }
+
+    /** Returns the index of the first range in the label of SYNSET. */
+    public int start(int synset) {
+        return offsets[synset];
+    }
+
+    /** Returns one past the index of the last range in the label of SYNSET. */
+    public int end(int synset) {
+        return offsets[synset + 1];
+    }
+
+    /** Returns the first preorder position covered by range I. */
+    public int rangeFrom(int i) {
+        return from[i];
+    }
+
+    /** Returns one past the last preorder position covered by range I. */
+    public int rangeTo(int i) {
+        return to[i];
+    }
+
+    /** Returns the synset at preorder position P. */
+    public int synsetAt(int p) {
+        return order[p];
+    }
+
+    /** Returns roughly how many bytes of heap this index occupies. */
+    public long sizeInBytes() {
+        return 4L * (order.length + position.length + offsets.length + from.length + to.length)
+                + 8L * labeled.length;
+    }
+
+    /**
+     * Numbers every synset in preorder by an iterative depth-first search down HYPONYMS,
+     * starting from each synset that has no hypernyms and then from any synset still
+     * unvisited. Fills ORDER, POSITION and SUBTREEEND, and returns the synsets in the
+     * order the search finished them.
+     */
+    private int[] depthFirst(CompactAdjacency hyponyms, int[] subtreeEnd) {
+        int n = hyponyms.keyCount();
+        boolean[] hasHypernym = new boolean[n];
+        for (int i = 0; i < hyponyms.size(); i += 1) {
+            hasHypernym[hyponyms.value(i)] = true;
+        }
+        Arrays.fill(position, -1);
+        int[] stack = new int[n];
+        int[] cursor = new int[n];
+        int[] finished = new int[n];
+        int visited = 0;
+        int finishedCount = 0;
+
+        for (int pass = 0; pass < 2; pass += 1) {
+            for (int root = 0; root < n; root += 1) {
+                if (position[root] >= 0 || (pass == 0 && hasHypernym[root])) {
+                    continue;
+                }
+                position[root] = visited;
+                order[visited] = root;
+                visited += 1;
+                stack[0] = root;
+                cursor[root] = hyponyms.start(root);
+                int depth = 1;
+                while (depth > 0) {
+                    int s = stack[depth - 1];
+                    if (cursor[s] < hyponyms.end(s)) {
+                        int next = hyponyms.value(cursor[s]);
+                        cursor[s] += 1;
+                        if (position[next] < 0) {
+                            position[next] = visited;
+                            order[visited] = next;
+                            visited += 1;
+                            cursor[next] = hyponyms.start(next);
+                            stack[depth] = next;
+                            depth += 1;
+                        }
+                    } else {
+                        subtreeEnd[s] = visited;
+                        finished[finishedCount] = s;
+                        finishedCount += 1;
+                        depth -= 1;
+                    }
+                }
+            }
+        }
+        return finished;
+    }
+
+    private static long pack(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    /** Returns the first COUNT packed RANGES, sorted and merged, as from/to pairs. */
+    private static int[] merge(long[] ranges, int count) {
+        Arrays.sort(ranges, 0, count);
+        int[] merged = new int[2 * count];
+        int size = 0;
+        for (int i = 0; i < count; i += 1) {
+            int lo = (int) (ranges[i] >>> 32);
+            int hi = (int) ranges[i];
+            if (size > 0 && lo <= merged[size - 1]) {
+                merged[size - 1] = Math.max(merged[size - 1], hi);
+            } else {
+                merged[size] = lo;
+                merged[size + 1] = hi;
+                size += 2;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+}
@@ -0,0 +1,360 @@
+package wordnet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The WordNet graph of synsets and hyponym edges, built from a synsets file and a hyponyms
+ * file.
+ *
+ * Every distinct word gets a dense int id in alphabetical order, and every relation is a
+ * CompactAdjacency over int ids: synset to direct hyponyms, synset to words, and word to
+ * synsets. The closure of a synset is found by an iterative breadth-first search over those
+ * arrays that marks the words it reaches in a bitset over word ids, and is kept as a
+ * CompressedBitmap in a ClosureCache. Because ids follow alphabetical order, walking a
+ * closure yields the answer already sorted, and the hyponyms shared by several words are the
+ * AND of their closures, so a repeated query does no graph search at all. A synset with a
+ * label in the optional ReachabilityIndex skips the search even the first time.
+ *
+ * Each thread keeps its own visited bitset, queue and word bitset and reuses them for every
+ * search. The word bitset records which of its 64-bit words a search sets, and the closure
+ * is read from, and cleared through, just those, as the visited bitset is through the
+ * queue; so a search costs time in proportion to the part of the graph it reaches, not to
+ * the number of synsets or words. A WordNet's graph is never modified after it is built,
+ * and it may be queried from any number of threads at once.
+ */
+public class WordNet {
+
+    /** Closure cache budget used when none is given: 64 MiB. */
+    public static final long DEFAULT_CACHE_BYTES = 64L << 20;
+    /** Most ranges a synset's reachability label may have when none is given. */
+    public static final int DEFAULT_MAX_INTERVALS = 16;
+
+    /** Every distinct word, sorted; a word's id is its index here. */
+    private final String[] words;
+    private final CompactAdjacency hyponyms;
+    private final CompactAdjacency synsetWords;
+    private final CompactAdjacency wordSynsets;
+    private final ThreadLocal<Scratch> scratch;
+    private final ClosureCache cache;
+    private final HypernymIndex hypernyms;
+    /** The reachability index, or null if it is turned off. */
+    private final ReachabilityIndex reachability;
+
+    /**
+     * Builds the graph from SYNSETSFILENAME, whose lines have the form
+     * "id,word1 word2 ...,gloss", and HYPONYMSFILENAME, whose lines have the form
+     * "id,hyponym1,hyponym2,...". Throws an IllegalArgumentException if a line is malformed
+     * or a hyponyms line names a synset that the synsets file does not define.
+     */
+    public WordNet(String synsetsFilename, String hyponymsFilename) {
+        this(synsetsFilename, hyponymsFilename, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * Builds the graph from SYNSETSFILENAME and HYPONYMSFILENAME like the two-argument
+     * constructor, caching synset closures in at most CACHEBYTES bytes. A budget of 0
+     * turns the cache off.
+     */
+    public WordNet(String synsetsFilename, String hyponymsFilename, long cacheBytes) {
+        this(synsetsFilename, hyponymsFilename, cacheBytes, DEFAULT_MAX_INTERVALS);
+    }
+
+    /**
+     * Builds the graph from SYNSETSFILENAME and HYPONYMSFILENAME like the two-argument
+     * constructor, caching synset closures in at most CACHEBYTES bytes and building a
+     * ReachabilityIndex that labels the synsets whose closures fit in MAXINTERVALS ranges.
+     * A budget of 0 turns the cache off, and a MAXINTERVALS of 0 turns the index off.
+     */
+    public WordNet(String synsetsFilename, String hyponymsFilename, long cacheBytes,
+                   int maxIntervals) {
+        WordNetLoader loaded = WordNetLoader.load(synsetsFilename, hyponymsFilename);
+        words = loaded.words;
+        synsetWords = loaded.synsetWords;
+        wordSynsets = loaded.wordSynsets;
+        hyponyms = loaded.hyponyms;
+
+        int synsetCount = hyponyms.keyCount();
+        int wordCount = words.length;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(synsetCount, wordCount));
+        cache = new ClosureCache(synsetCount, cacheBytes);
+        hypernyms = new HypernymIndex(hyponyms);
+        reachability = maxIntervals > 0 ? new ReachabilityIndex(hyponyms, maxIntervals) : null;
+    }
+
+    /** Returns the number of synsets. */
+    public int synsetCount() {
+        return hyponyms.keyCount();
+    }
+
+    /** Returns the number of distinct words. */
+    public int wordCount() {
+        return words.length;
+    }
+
+    /** Returns the number of hyponym edges. */
+    public int edgeCount() {
+        return hyponyms.size();
+    }
+
+    /** Returns whether WORD belongs to any synset. */
+    public boolean contains(String word) {
+        return id(word) >= 0;
+    }
+
+    /** Returns the id of WORD, or -1 if WORD belongs to no synset. */
+    public int id(String word) {
+        int id = Arrays.binarySearch(words, word);
+        return id >= 0 ? id : -1;
+    }
+
+    /** Returns the word with the given ID. */
+    public String word(int id) {
+        return words[id];
+    }
+
+    /** Returns the ids of the synsets WORD belongs to, or an empty array if there are none. */
+    public int[] synsets(String word) {
+        int id = id(word);
+        if (id < 0) {
+            return new int[0];
+        }
+        int[] result = new int[wordSynsets.degree(id)];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = wordSynsets.value(wordSynsets.start(id) + i);
+        }
+        return result;
+    }
+
+    /** Returns the words of SYNSET in the order the synsets file lists them. */
+    public List<String> synsetWords(int synset) {
+        List<String> result = new ArrayList<>(synsetWords.degree(synset));
+        for (int i = synsetWords.start(synset); i < synsetWords.end(synset); i += 1) {
+            result.add(words[synsetWords.value(i)]);
+        }
+        return result;
+    }
+
+    /** Returns the reachability index over this graph, or null if it is turned off. */
+    public ReachabilityIndex reachability() {
+        return reachability;
+    }
+
+    /**
+     * Returns whether HYPONYM is WORD or a hyponym of it, directly or indirectly, in the
+     * sense of hyponyms(String).
+     */
+    public boolean isHyponym(String hyponym, String word) {
+        int hyponymId = id(hyponym);
+        int wordId = id(word);
+        if (hyponymId < 0 || wordId < 0) {
+            return false;
+        }
+        for (int i = wordSynsets.start(wordId); i < wordSynsets.end(wordId); i += 1) {
+            int synset = wordSynsets.value(i);
+            if (reachability == null || !reachability.isLabeled(synset)) {
+                if (synsetClosure(synset).contains(hyponymId)) {
+                    return true;
+                }
+                continue;
+            }
+            for (int j = wordSynsets.start(hyponymId); j < wordSynsets.end(hyponymId); j += 1) {
+                if (reachability.reaches(synset, wordSynsets.value(j))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Returns the index of hypernym depths and paths over this graph. */
+    public HypernymIndex hypernyms() {
+        return hypernyms;
+    }
+
+    /**
+     * Returns WORD and every word in a synset that is a hyponym, directly or indirectly, of
+     * a synset containing WORD, in alphabetical order without duplicates. Returns an empty
+     * list if WORD belongs to no synset.
+     */
+    public List<String> hyponyms(String word) {
+        return hyponyms(List.of(word));
+    }
+
+    /**
+     * Returns the words that are hyponyms of every word in WORDS, in the sense of
+     * hyponyms(String), in alphabetical order without duplicates. Returns an empty list if
+     * WORDS is empty or any of them belongs to no synset.
+     */
+    public List<String> hyponyms(Collection<String> words) {
+        CompressedBitmap common = commonClosure(words);
+        List<String> result = new ArrayList<>(common.cardinality());
+        common.forEach(id -> result.add(this.words[id]));
+        return result;
+    }
+
+    /**
+     * Returns the ids of the words that are hyponyms of every word in WORDS, in the sense of
+     * hyponyms(String). Returns the empty set if WORDS is empty or any of them belongs to no
+     * synset.
+     */
+    public CompressedBitmap commonClosure(Collection<String> words) {
+        if (words.isEmpty()) {
+            return CompressedBitmap.EMPTY;
+        }
+        CompressedBitmap[] closures = new CompressedBitmap[words.size()];
+        int n = 0;
+        for (String word : words) {
+            int id = id(word);
+            if (id < 0) {
+                return CompressedBitmap.EMPTY;
+            }
+            closures[n] = wordClosure(id);
+            n += 1;
+        }
+        /* Intersecting the smallest closures first keeps every intermediate result small. */
+        Arrays.sort(closures, Comparator.comparingInt(CompressedBitmap::cardinality));
+        CompressedBitmap common = closures[0];
+        for (int i = 1; i < closures.length && !common.isEmpty(); i += 1) {
+            common = common.and(closures[i]);
+        }
+        return common;
+    }
+
+    /**
+     * Returns the ids of the words in every synset that is a hyponym, directly or
+     * indirectly, of a synset containing the word with id WORD, including that word itself.
+     */
+    public CompressedBitmap wordClosure(int word) {
+        int start = wordSynsets.start(word);
+        CompressedBitmap closure = synsetClosure(wordSynsets.value(start));
+        for (int i = start + 1; i < wordSynsets.end(word); i += 1) {
+            closure = closure.or(synsetClosure(wordSynsets.value(i)));
+        }
+        return closure;
+    }
+
+    /**
+     * Returns the ids of the words in SYNSET and in every synset that is a hyponym of it,
+     * directly or indirectly. The answer comes from the closure cache when it can, and is
+     * cached otherwise.
+     */
+    public CompressedBitmap synsetClosure(int synset) {
+        CompressedBitmap closure = cache.get(synset);
+        if (closure == null) {
+            closure = searchClosure(synset);
+            cache.put(synset, closure);
+        }
+        return closure;
+    }
+
+    /** Returns the cache of synset closures. */
+    public ClosureCache cache() {
+        return cache;
+    }
+
+    /**
+     * Returns the closure of ROOT, from its reachability label if it has one and otherwise by
+     * breadth-first search. A synset below ROOT whose closure is already cached contributes
+     * that closure instead of being searched, so queries share the parts of the graph they
+     * have in common.
+     */
+    private CompressedBitmap searchClosure(int root) {
+        if (reachability != null && reachability.isLabeled(root)) {
+            return labeledClosure(root);
+        }
+        Scratch s = scratch.get();
+        long[] seen = s.seen;
+        int[] queue = s.queue;
+        seen[root >>> 6] |= 1L << root;
+        queue[0] = root;
+        int tail = 1;
+
+        for (int head = 0; head < tail; head += 1) {
+            int synset = queue[head];
+            if (synset != root && hyponyms.degree(synset) > 0) {
+                CompressedBitmap known = cache.peek(synset);
+                if (known != null) {
+                    s.slotCount = known.orInto(s.marks, s.slots, s.slotCount);
+                    continue;
+                }
+            }
+            markWords(s, synset);
+            for (int i = hyponyms.start(synset); i < hyponyms.end(synset); i += 1) {
+                int next = hyponyms.value(i);
+                if ((seen[next >>> 6] & (1L << next)) == 0) {
+                    seen[next >>> 6] |= 1L << next;
+                    queue[tail] = next;
+                    tail += 1;
+                }
+            }
+        }
+
+        /* Every visited synset is in the queue, so clearing its words clears the bitset. */
+        for (int i = 0; i < tail; i += 1) {
+            seen[queue[i] >>> 6] = 0L;
+        }
+        return s.takeMarks();
+    }
+
+    /** Returns the closure of ROOT, which must be labeled, by walking its label's ranges. */
+    private CompressedBitmap labeledClosure(int root) {
+        Scratch s = scratch.get();
+        for (int r = reachability.start(root); r < reachability.end(root); r += 1) {
+            for (int p = reachability.rangeFrom(r); p < reachability.rangeTo(r); p += 1) {
+                markWords(s, reachability.synsetAt(p));
+            }
+        }
+        return s.takeMarks();
+    }
+
+    /** Marks the words of SYNSET in the word bitset of S. */
+    private void markWords(Scratch s, int synset) {
+        for (int i = synsetWords.start(synset); i < synsetWords.end(synset); i += 1) {
+            s.mark(synsetWords.value(i));
+        }
+    }
+
+    /** The search state one thread reuses across queries. */
+    private static class Scratch {
+        /** Synsets visited by the search in progress; all clear between searches. */
+        final long[] seen;
+        /** Synsets in the order they were visited. */
+        final int[] queue;
+        /** Words reached by the search in progress; all clear between searches. */
+        final long[] marks;
+        /** Indexes of the words of MARKS that are not zero, in the order they were set. */
+        final int[] slots;
+        /** How many indexes SLOTS holds. */
+        int slotCount;
+
+        Scratch(int synsetCount, int wordCount) {
+            seen = new long[(synsetCount + 63) >>> 6];
+            queue = new int[synsetCount];
+            marks = new long[(wordCount + 63) >>> 6];
+            slots = new int[marks.length];
+        }
+
+        /** Marks word W as reached. */
+        void mark(int w) {
+            if (marks[w >>> 6] == 0) {
+                slots[slotCount] = w >>> 6;
+                slotCount += 1;
+            }
+            marks[w >>> 6] |= 1L << w;
+        }
+
+        /**
+         * Returns the words marked since the last call as a CompressedBitmap, and clears
+         * them, in time proportional to the part of the bitset they occupy.
+         */
+        CompressedBitmap takeMarks() {
+            CompressedBitmap marked = CompressedBitmap.drain(marks, slots, slotCount);
+            slotCount = 0;
+            return marked;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package wordnet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads a synsets file and a hyponyms file into the arrays behind a WordNet.
+ *
+ * Both files are memory-mapped and parsed at the same time, the hyponyms file on the common
+ * fork-join pool and the synsets file on the calling thread, by hand-written scanners that
+ * read the mapped bytes directly: no readLine, no String.split, and one String allocation
+ * per distinct word. Words are interned by a hash table keyed on their bytes in the mapped
+ * file. The hyponym graph is built in two passes over the mapped file, one that counts each
+ * synset's hyponyms and one that fills them in, so its arrays are allocated at their exact
+ * size and no per-synset list is ever built.
+ */
+class WordNetLoader {
+
+    /** Every distinct word, sorted; a word's id is its index here. */
+    final String[] words;
+    final CompactAdjacency synsetWords;
+    final CompactAdjacency wordSynsets;
+    final CompactAdjacency hyponyms;
+
+    private WordNetLoader(String[] words, CompactAdjacency synsetWords,
+                          CompactAdjacency wordSynsets, CompactAdjacency hyponyms) {
+        this.words = words;
+        this.synsetWords = synsetWords;
+        this.wordSynsets = wordSynsets;
+        this.hyponyms = hyponyms;
+    }
+
+    /**
+     * Loads SYNSETSFILENAME, whose lines have the form "id,word1 word2 ...,gloss", and
+     * HYPONYMSFILENAME, whose lines have the form "id,hyponym1,hyponym2,...". Throws an
+     * IllegalArgumentException if a line is malformed or a hyponyms line names a synset that
+     * the synsets file does not define.
+     */
+    static WordNetLoader load(String synsetsFilename, String hyponymsFilename) {
+        ForkJoinTask<CompactAdjacency> edges = ForkJoinPool.commonPool().submit(
+                () -> new HyponymParser(map(hyponymsFilename), hyponymsFilename).parse());
+        SynsetParser synsets = new SynsetParser(map(synsetsFilename), synsetsFilename);
+        synsets.parse();
+        CompactAdjacency hyponyms = edges.join();
+
+        int synsetCount = synsets.synsetCount;
+        if (hyponyms.keyCount() > synsetCount) {
+            throw new IllegalArgumentException("No synset with id " + (hyponyms.keyCount() - 1));
+        }
+        for (int i = 0; i < hyponyms.size(); i += 1) {
+            if (hyponyms.value(i) >= synsetCount) {
+                throw new IllegalArgumentException("No synset with id " + hyponyms.value(i));
+            }
+        }
+
+        /* Renumber the words in alphabetical order. */
+        String[] names = Arrays.copyOf(synsets.names, synsets.nameCount);
+        String[] words = names.clone();
+        Arrays.sort(words);
+        int[] rank = new int[names.length];
+        for (int i = 0; i < names.length; i += 1) {
+            rank[i] = Arrays.binarySearch(words, names[i]);
+        }
+        int memberships = synsets.memberships;
+        int[] wordIds = new int[memberships];
+        for (int i = 0; i < memberships; i += 1) {
+            wordIds[i] = rank[synsets.memberWords[i]];
+        }
+
+        return new WordNetLoader(words,
+                CompactAdjacency.fromPairs(synsetCount, synsets.memberSynsets, wordIds,
+                        memberships),
+                CompactAdjacency.fromPairs(words.length, wordIds, synsets.memberSynsets,
+                        memberships),
+                hyponyms.withKeyCount(synsetCount));
+    }
+
+    private static ByteBuffer map(String filename) {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(filename + " is too large");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + filename, e);
+        }
+    }
+
+    /** A scanner over a mapped file, holding the helpers both parsers share. */
+    private abstract static class Scanner {
+        final ByteBuffer buf;
+        final String filename;
+        /** Position of the scanner within BUF. */
+        int pos;
+
+        Scanner(ByteBuffer buf, String filename) {
+            this.buf = buf;
+            this.filename = filename;
+        }
+
+        /** Skips any line breaks at POS and returns whether anything is left to parse. */
+        boolean nextLine() {
+            while (pos < buf.limit() && (buf.get(pos) == '\n' || buf.get(pos) == '\r')) {
+                pos += 1;
+            }
+            return pos < buf.limit();
+        }
+
+        /** Moves POS just past the next '\n', or to the end of the file. */
+        void skipLine() {
+            while (pos < buf.limit() && buf.get(pos) != '\n') {
+                pos += 1;
+            }
+            pos += 1;
+        }
+
+        /** Returns whether POS is at the end of a line or of the file. */
+        boolean atLineEnd() {
+            return pos >= buf.limit() || buf.get(pos) == '\n' || buf.get(pos) == '\r';
+        }
+
+        void expect(byte b, int lineStart) {
+            if (pos >= buf.limit() || buf.get(pos) != b) {
+                throw malformed(lineStart);
+            }
+            pos += 1;
+        }
+
+        int parseInt(int lineStart) {
+            int start = pos;
+            int value = 0;
+            while (pos < buf.limit()) {
+                int digit = buf.get(pos) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                pos += 1;
+            }
+            if (pos == start || pos - start > 9) {
+                throw malformed(lineStart);
+            }
+            return value;
+        }
+
+        IllegalArgumentException malformed(int lineStart) {
+            int lineEnd = lineStart;
+            while (lineEnd < buf.limit() && buf.get(lineEnd) != '\n') {
+                lineEnd += 1;
+            }
+            byte[] line = new byte[lineEnd - lineStart];
+            buf.get(lineStart, line);
+            return new IllegalArgumentException("Malformed line at byte " + lineStart + " of "
+                    + filename + ": " + new String(line, StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Parses a synsets file into (synset, word) memberships. */
+    private static class SynsetParser extends Scanner {
+        /** One more than the largest synset id. */
+        int synsetCount;
+        /** The words in order of first appearance; memberWords holds indexes into these. */
+        String[] names = new String[1024];
+        int nameCount;
+        int[] memberSynsets = new int[1024];
+        int[] memberWords = new int[1024];
+        int memberships;
+
+        /* Open-addressing table from word bytes to name index. Each name remembers where
+         * in BUF its first occurrence starts, so lookups compare against the mapped bytes
+         * instead of a copy. */
+        private int[] slots = new int[2048];
+        private int[] nameStart = new int[1024];
+        private int[] nameLength = new int[1024];
+
+        SynsetParser(ByteBuffer buf, String filename) {
+            super(buf, filename);
+        }
+
+        void parse() {
+            Arrays.fill(slots, -1);
+            while (nextLine()) {
+                int lineStart = pos;
+                int synset = parseInt(lineStart);
+                synsetCount = Math.max(synsetCount, synset + 1);
+                expect((byte) ',', lineStart);
+                while (!atLineEnd() && buf.get(pos) != ',') {
+                    int start = pos;
+                    while (!atLineEnd() && buf.get(pos) != ',' && buf.get(pos) != ' ') {
+                        pos += 1;
+                    }
+                    if (pos > start) {
+                        addMembership(synset, intern(start, pos - start));
+                    }
+                    if (!atLineEnd() && buf.get(pos) == ' ') {
+                        pos += 1;
+                    }
+                }
+                skipLine();
+            }
+        }
+
+        private void addMembership(int synset, int name) {
+            if (memberships == memberSynsets.length) {
+                memberSynsets = Arrays.copyOf(memberSynsets, memberships * 2);
+                memberWords = Arrays.copyOf(memberWords, memberships * 2);
+            }
+            memberSynsets[memberships] = synset;
+            memberWords[memberships] = name;
+            memberships += 1;
+        }
+
+        /** Returns the name index of the word stored in BUF[START, START + LENGTH). */
+        private int intern(int start, int length) {
+            int mask = slots.length - 1;
+            int slot = hash(start, length) & mask;
+            while (slots[slot] != -1) {
+                int id = slots[slot];
+                if (sameBytes(nameStart[id], nameLength[id], start, length)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = nameCount;
+            if (id == names.length) {
+                names = Arrays.copyOf(names, id * 2);
+                nameStart = Arrays.copyOf(nameStart, id * 2);
+                nameLength = Arrays.copyOf(nameLength, id * 2);
+            }
+            byte[] bytes = new byte[length];
+            buf.get(start, bytes);
+            names[id] = new String(bytes, StandardCharsets.UTF_8);
+            nameStart[id] = start;
+            nameLength[id] = length;
+            nameCount += 1;
+
+            slots[slot] = id;
+            if (nameCount * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        /** Returns the FNV-1a hash of BUF[START, START + LENGTH). */
+        private int hash(int start, int length) {
+            int hash = 0x811c9dc5;
+            for (int i = start; i < start + length; i += 1) {
+                hash = (hash ^ buf.get(i)) * 0x01000193;
+            }
+            return hash;
+        }
+
+        private boolean sameBytes(int a, int aLength, int b, int bLength) {
+            if (aLength != bLength) {
+                return false;
+            }
+            for (int i = 0; i < aLength; i += 1) {
+                if (buf.get(a + i) != buf.get(b + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            Arrays.fill(slots, -1);
+            int mask = slots.length - 1;
+            for (int id = 0; id < nameCount; id += 1) {
+                int slot = hash(nameStart[id], nameLength[id]) & mask;
+                while (slots[slot] != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id;
+            }
+        }
+    }
+
+    /** Parses a hyponyms file straight into a CompactAdjacency, in two passes. */
+    private static class HyponymParser extends Scanner {
+        /** Number of hyponyms of each synset, then the fill position of each synset. */
+        private int[] counts = new int[1024];
+        private int[] offsets;
+        private int[] values;
+        /** One more than the largest synset id that has a line of its own. */
+        private int keyCount;
+
+        HyponymParser(ByteBuffer buf, String filename) {
+            super(buf, filename);
+        }
+
+        CompactAdjacency parse() {
+            pass(false);
+            offsets = new int[keyCount + 1];
+            for (int k = 0; k < keyCount; k += 1) {
+                offsets[k + 1] = offsets[k] + counts[k];
+            }
+            values = new int[offsets[keyCount]];
+            counts = Arrays.copyOf(offsets, keyCount);
+            pos = 0;
+            pass(true);
+            return new CompactAdjacency(offsets, values);
+        }
+
+        /** Scans the whole file, counting edges if FILL is false and storing them if not. */
+        private void pass(boolean fill) {
+            while (nextLine()) {
+                int lineStart = pos;
+                int synset = parseInt(lineStart);
+                if (!fill && synset >= counts.length) {
+                    counts = Arrays.copyOf(counts, Math.max(counts.length * 2, synset + 1));
+                }
+                keyCount = Math.max(keyCount, synset + 1);
+                while (!atLineEnd()) {
+                    expect((byte) ',', lineStart);
+                    int hyponym = parseInt(lineStart);
+                    if (fill) {
+                        values[counts[synset]] = hyponym;
+                    }
+                    counts[synset] += 1;
+                }
+                skipLine();
+            }
+        }
+    }
+}
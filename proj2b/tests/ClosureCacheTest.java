@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.Test;
+import wordnet.ClosureCache;
+import wordnet.CompressedBitmap;
+import wordnet.WordNet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the ClosureCache and CompressedBitmap classes. */
+public class ClosureCacheTest {
+    public static final String SMALL_SYNSET_FILE = "data/wordnet/synsets16.txt";
+    public static final String SMALL_HYPONYM_FILE = "data/wordnet/hyponyms16.txt";
+
+    @Test
+    public void testBitmapSetOperations() {
+        CompressedBitmap a = CompressedBitmap.of(1, 64, 65, 1000);
+        CompressedBitmap b = CompressedBitmap.of(64, 1000, 5000);
+
+        assertThat(a.cardinality()).isEqualTo(4);
+        assertThat(a.contains(65)).isTrue();
+        assertThat(a.contains(66)).isFalse();
+        assertThat(a.and(b)).isEqualTo(CompressedBitmap.of(64, 1000));
+        assertThat(a.or(b)).isEqualTo(CompressedBitmap.of(1, 64, 65, 1000, 5000));
+        assertThat(a.and(CompressedBitmap.of(2, 66)).isEmpty()).isTrue();
+
+        List<Integer> bits = new ArrayList<>();
+        a.or(b).forEach(bits::add);
+        assertThat(bits).isEqualTo(List.of(1, 64, 65, 1000, 5000));
+    }
+
+    @Test
+    public void testSkewedAndMatchesMembership() {
+        /* A few scattered ids against a set storing thousands of words, so AND gallops. */
+        int[] small = {0, 63, 640, 641, 99_999, 200_000, 262_143};
+        int[] large = new int[4096];
+        for (int i = 0; i < large.length; i += 1) {
+            large[i] = i * 64 + (i % 3 == 0 ? 0 : 1);
+        }
+        CompressedBitmap a = CompressedBitmap.of(small);
+        CompressedBitmap b = CompressedBitmap.of(large);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int id : small) {
+            if (b.contains(id)) {
+                expected.add(id);
+            }
+        }
+        List<Integer> bits = new ArrayList<>();
+        a.and(b).forEach(bits::add);
+        assertThat(bits).isEqualTo(expected);
+        assertThat(b.and(a)).isEqualTo(a.and(b));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        CompressedBitmap closure = CompressedBitmap.of(3);
+        ClosureCache cache = new ClosureCache(10, 2 * closure.sizeInBytes());
+        cache.put(0, closure);
+        cache.put(1, closure);
+        assertThat(cache.get(0)).isEqualTo(closure);
+
+        cache.put(2, closure);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictions()).isEqualTo(1L);
+        assertThat(cache.peek(1)).isNull();
+        assertThat(cache.get(0)).isEqualTo(closure);
+        assertThat(cache.get(2)).isEqualTo(closure);
+        assertThat(cache.bytes()).isAtMost(2 * closure.sizeInBytes());
+    }
+
+    @Test
+    public void testCachedAnswersMatchUncached() {
+        WordNet cached = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE);
+        WordNet uncached = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE, 0);
+        List<List<String>> queries = List.of(List.of("change"), List.of("occurrence", "change"),
+                List.of("event"), List.of("act", "change"), List.of("jump"));
+        for (int round = 0; round < 2; round += 1) {
+            for (List<String> query : queries) {
+                assertThat(cached.hyponyms(query)).isEqualTo(uncached.hyponyms(query));
+            }
+        }
+        assertThat(cached.cache().hits()).isGreaterThan(0L);
+        assertThat(uncached.cache().size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Test;
+import wordnet.HypernymIndex;
+import wordnet.WordNet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the HypernymIndex class. */
+public class HypernymIndexTest {
+    public static final String SMALL_SYNSET_FILE = "data/wordnet/synsets16.txt";
+    public static final String SMALL_HYPONYM_FILE = "data/wordnet/hyponyms16.txt";
+
+    @Test
+    public void testDepthsAndAncestors() {
+        WordNet wn = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE);
+        HypernymIndex index = wn.hypernyms();
+        int saltation = wn.synsets("saltation")[0];
+        int increase = wn.synsets("increase")[0];
+        int event = wn.synsets("event")[0];
+
+        assertThat(index.depth(saltation)).isEqualTo(4);
+        assertThat(index.parent(event)).isEqualTo(-1);
+        assertThat(wn.synsetWords(index.ancestor(saltation, 2)))
+                .isEqualTo(List.of("change", "alteration", "modification"));
+        assertThat(index.ancestor(saltation, 100)).isEqualTo(event);
+        assertThat(index.treeLca(saltation, increase)).isEqualTo(index.ancestor(saltation, 2));
+        assertThat(index.treeLca(saltation, wn.synsets("act")[0])).isEqualTo(-1);
+    }
+
+    @Test
+    public void testShortestPath() {
+        WordNet wn = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE);
+        HypernymIndex index = wn.hypernyms();
+
+        HypernymIndex.AncestralPath path = index.shortestPath(wn.synsets("demotion"),
+                wn.synsets("variation"));
+        assertThat(path.length()).isEqualTo(2);
+        assertThat(wn.synsetWords(path.ancestors()[0])).isEqualTo(List.of("action"));
+        assertThat(names(wn, path.path())).isEqualTo(List.of("demotion", "action", "variation"));
+
+        /* One of the synsets of "change" is itself a hypernym of "increase". */
+        path = index.shortestPath(wn.synsets("change"), wn.synsets("increase"));
+        assertThat(path.length()).isEqualTo(1);
+        assertThat(names(wn, path.path())).isEqualTo(List.of("change", "increase"));
+
+        assertThat(index.shortestPath(wn.synsets("act"), wn.synsets("event"))).isNull();
+        assertThat(index.shortestPath(wn.synsets("zebra"), wn.synsets("event"))).isNull();
+    }
+
+    private static List<String> names(WordNet wn, int[] synsets) {
+        List<String> names = new ArrayList<>();
+        for (int synset : synsets) {
+            names.add(wn.synsetWords(synset).get(0));
+        }
+        return names;
+    }
+}
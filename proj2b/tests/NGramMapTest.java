@@ -0,0 +1,82 @@
+import ngrams.NGramMap;
+import ngrams.TimeSeries;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the proj2b NGramMap class. */
+public class NGramMapTest {
+    public static final String VERY_SHORT_WORDS_FILE = "data/ngrams/very_short.csv";
+    public static final String TOTAL_COUNTS_FILE = "data/ngrams/total_counts.csv";
+
+    @Test
+    public void testCountHistory() {
+        NGramMap ngm = new NGramMap(VERY_SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        assertThat(List.copyOf(ngm.countHistory("request", 2006, 2007).keySet()))
+                .isEqualTo(List.of(2006, 2007));
+        assertThat(ngm.countHistory("request").get(2005)).isWithin(1E-10).of(646179.0);
+        assertThat(ngm.countHistory("zebra")).isEmpty();
+        assertThat(ngm.totalCountHistory().get(1470)).isWithin(1E-10).of(77887501365.0);
+    }
+
+    @Test
+    public void testTotalCount() {
+        NGramMap ngm = new NGramMap(VERY_SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        assertThat(ngm.totalCount("airport", 2007, 2008)).isWithin(1E-10).of(175702.0 + 173294.0);
+        assertThat(ngm.totalCount("airport", 2008, 2100)).isWithin(1E-10).of(173294.0);
+        assertThat(ngm.totalCount("airport", 1900, 1950)).isEqualTo(0.0);
+        assertThat(ngm.totalCount("zebra", 1400, 2100)).isEqualTo(0.0);
+
+        double sum = 0;
+        for (double count : ngm.countHistory("request", 2005, 2007).values()) {
+            sum += count;
+        }
+        assertThat(ngm.totalCount(ngm.id("request"), 2005, 2007)).isWithin(1E-10).of(sum);
+        assertThat(ngm.word(ngm.id("request"))).isEqualTo("request");
+    }
+
+    @Test
+    public void testWeightHistory() {
+        NGramMap ngm = new NGramMap(VERY_SHORT_WORDS_FILE, TOTAL_COUNTS_FILE);
+        TimeSeries request = ngm.weightHistory("request", 2006, 2007);
+        TimeSeries counts = ngm.countHistory("request", 2006, 2007);
+        TimeSeries totals = ngm.totalCountHistory();
+        assertThat(request.years()).isEqualTo(List.of(2006, 2007));
+        for (int year : request.years()) {
+            assertThat(request.get(year)).isWithin(1E-15).of(counts.get(year) / totals.get(year));
+        }
+        assertThat(ngm.weightHistory("zebra")).isEmpty();
+
+        TimeSeries summed = ngm.summedWeightHistory(List.of("request", "airport", "zebra"),
+                2006, 2007);
+        TimeSeries expected = request.plus(ngm.weightHistory("airport", 2006, 2007));
+        assertThat(summed.years()).isEqualTo(expected.years());
+        for (int year : expected.years()) {
+            assertThat(summed.get(year)).isWithin(1E-15).of(expected.get(year));
+        }
+    }
+
+    @Test
+    public void testUnsortedRepeatedYearsKeepLastRow() throws IOException {
+        Path dir = Files.createTempDirectory("ngrams");
+        Path words = Files.writeString(dir.resolve("words.csv"),
+                "cat\t2001\t5\t1\ncat\t2000\t1\t1\ndog\t2000\t7\t1\ncat\t2001\t6\t1\n");
+        Path counts = Files.writeString(dir.resolve("counts.csv"), "2000,10,1,1\n2001,20,1,1\n");
+        try {
+            NGramMap ngm = new NGramMap(words.toString(), counts.toString());
+            assertThat(ngm.countHistory("cat").years()).isEqualTo(List.of(2000, 2001));
+            assertThat(ngm.countHistory("cat").data()).isEqualTo(List.of(1.0, 6.0));
+            assertThat(ngm.weightHistory("cat").data()).isEqualTo(List.of(0.1, 0.3));
+            assertThat(ngm.totalCount("cat", 2000, 2001)).isEqualTo(7.0);
+        } finally {
+            Files.delete(words);
+            Files.delete(counts);
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import org.junit.jupiter.api.Test;
+import wordnet.ReachabilityIndex;
+import wordnet.WordNet;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the ReachabilityIndex class. */
+public class ReachabilityIndexTest {
+    public static final String SMALL_SYNSET_FILE = "data/wordnet/synsets16.txt";
+    public static final String SMALL_HYPONYM_FILE = "data/wordnet/hyponyms16.txt";
+
+    @Test
+    public void testReaches() {
+        WordNet wn = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE);
+        ReachabilityIndex index = wn.reachability();
+        int event = wn.synsets("event")[0];
+        int saltation = wn.synsets("saltation")[0];
+        int act = wn.synsets("act")[0];
+
+        assertThat(index.labeledCount()).isEqualTo(wn.synsetCount());
+        assertThat(index.reaches(event, saltation)).isTrue();
+        assertThat(index.reaches(event, event)).isTrue();
+        assertThat(index.reaches(saltation, event)).isFalse();
+        assertThat(index.reaches(act, saltation)).isFalse();
+        assertThat(wn.isHyponym("leap", "occurrence")).isTrue();
+        assertThat(wn.isHyponym("occurrence", "leap")).isFalse();
+    }
+
+    @Test
+    public void testMatchesSearch() {
+        WordNet indexed = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE, 0, 1);
+        WordNet searched = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE, 0, 0);
+        assertThat(searched.reachability()).isNull();
+        for (int w = 0; w < indexed.wordCount(); w += 1) {
+            String word = indexed.word(w);
+            assertThat(indexed.hyponyms(word)).isEqualTo(searched.hyponyms(word));
+            for (int v = 0; v < indexed.wordCount(); v += 1) {
+                assertThat(indexed.isHyponym(indexed.word(v), word))
+                        .isEqualTo(searched.isHyponym(indexed.word(v), word));
+            }
+        }
+    }
+}
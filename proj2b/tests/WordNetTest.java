@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+import wordnet.WordNet;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/** Unit Tests for the WordNet class. */
+public class WordNetTest {
+    public static final String SMALL_SYNSET_FILE = "data/wordnet/synsets16.txt";
+    public static final String SMALL_HYPONYM_FILE = "data/wordnet/hyponyms16.txt";
+
+    @Test
+    public void testSizes() {
+        WordNet wn = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE);
+        assertThat(wn.synsetCount()).isEqualTo(16);
+        assertThat(wn.contains("saltation")).isTrue();
+        assertThat(wn.contains("zebra")).isFalse();
+        assertThat(wn.word(wn.id("change"))).isEqualTo("change");
+    }
+
+    @Test
+    public void testHyponyms() {
+        WordNet wn = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE);
+        assertThat(wn.hyponyms("act")).isEqualTo(List.of("act", "action", "change", "demotion",
+                "human_action", "human_activity", "variation"));
+        assertThat(wn.hyponyms("transition")).isEqualTo(List.of("transition"));
+        assertThat(wn.hyponyms("zebra")).isEmpty();
+    }
+
+    @Test
+    public void testCommonHyponyms() {
+        WordNet wn = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE);
+        assertThat(wn.hyponyms(List.of("occurrence", "change"))).isEqualTo(List.of("alteration",
+                "change", "increase", "jump", "leap", "modification", "saltation", "transition"));
+        assertThat(wn.hyponyms(List.of("act", "zebra"))).isEmpty();
+        assertThat(wn.hyponyms(List.of())).isEmpty();
+        /* Running a query must leave nothing behind that changes the next one. */
+        assertThat(wn.hyponyms("act")).hasSize(7);
+    }
+
+    /**
+     * Searches every synset twice on one thread, without the cache, by breadth-first search
+     * and by reachability label, and checks each closure against a graph that has never
+     * searched before, so nothing one search marks may leak into the next.
+     */
+    @Test
+    public void testSearchesLeaveScratchClear() {
+        for (int maxIntervals : new int[] {0, 1, WordNet.DEFAULT_MAX_INTERVALS}) {
+            WordNet wn = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE, 0, maxIntervals);
+            for (int pass = 0; pass < 2; pass += 1) {
+                for (int i = 0; i < wn.synsetCount(); i += 1) {
+                    int synset = pass == 0 ? i : wn.synsetCount() - 1 - i;
+                    WordNet fresh = new WordNet(SMALL_SYNSET_FILE, SMALL_HYPONYM_FILE, 0,
+                            maxIntervals);
+                    assertThat(wn.synsetClosure(synset)).isEqualTo(fresh.synsetClosure(synset));
+                }
+            }
+        }
+    }
+}
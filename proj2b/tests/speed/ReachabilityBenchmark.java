@@ -0,0 +1,89 @@
+package speed;
+
+import wordnet.ReachabilityIndex;
+import wordnet.WordNet;
+
+import java.util.Random;
+
+/**
+ * Measures what the ReachabilityIndex buys on the full WordNet graph, for a range of label
+ * caps from 0 (no index) upwards.
+ *
+ * For each cap it reports how long the index took to build, how many synsets it labeled,
+ * how much memory it takes, and the mean latency of hyponyms and isHyponym over random
+ * words and over the root of the graph. The closure cache is turned off so that every query
+ * really computes its closure. Each measurement is warmed up for WARMUP_ROUNDS rounds and
+ * then averaged over MEASURED_ROUNDS rounds of QUERIES queries.
+ *
+ * Usage: ReachabilityBenchmark [synsetsFile hyponymsFile [rootWord]]
+ */
+public class ReachabilityBenchmark {
+    private static final String SYNSETS_FILE = "data/wordnet/synsets.txt";
+    private static final String HYPONYMS_FILE = "data/wordnet/hyponyms.txt";
+    private static final int[] CAPS = {0, 1, 4, 16, 64, Integer.MAX_VALUE};
+    private static final int QUERIES = 2000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    /** Keeps the JIT from discarding the queries. */
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        String synsetsFile = args.length > 1 ? args[0] : SYNSETS_FILE;
+        String hyponymsFile = args.length > 1 ? args[1] : HYPONYMS_FILE;
+        String rootWord = args.length > 2 ? args[2] : "entity";
+
+        System.out.printf("%10s %10s %9s %10s %14s %14s %14s%n", "cap", "build ms", "labeled",
+                "index KiB", "hyponyms us", "root us", "isHyponym us");
+        for (int cap : CAPS) {
+            long buildStart = System.nanoTime();
+            WordNet wn = new WordNet(synsetsFile, hyponymsFile, 0, cap);
+            double buildMillis = (System.nanoTime() - buildStart) / 1e6;
+            ReachabilityIndex index = wn.reachability();
+
+            String[] words = new String[QUERIES];
+            Random random = new Random(61);
+            for (int i = 0; i < QUERIES; i += 1) {
+                words[i] = wn.word(random.nextInt(wn.wordCount()));
+            }
+            double hyponyms = measure(() -> {
+                long total = 0;
+                for (String word : words) {
+                    total += wn.hyponyms(word).size();
+                }
+                return total;
+            }) / QUERIES;
+            double root = measure(() -> wn.hyponyms(rootWord).size());
+            double isHyponym = measure(() -> {
+                long total = 0;
+                for (int i = 0; i + 1 < QUERIES; i += 1) {
+                    total += wn.isHyponym(words[i], words[i + 1]) ? 1 : 0;
+                    total += wn.isHyponym(words[i], rootWord) ? 1 : 0;
+                }
+                return total;
+            }) / (2 * (QUERIES - 1));
+
+            System.out.printf("%10s %10.1f %8.1f%% %10d %14.2f %14.2f %14.3f%n",
+                    cap == Integer.MAX_VALUE ? "unlimited" : Integer.toString(cap), buildMillis,
+                    index == null ? 0.0 : 100.0 * index.labeledCount() / wn.synsetCount(),
+                    index == null ? 0 : index.sizeInBytes() / 1024, hyponyms, root, isHyponym);
+        }
+    }
+
+    /** A batch of queries that returns something derived from their answers. */
+    private interface Batch {
+        long run();
+    }
+
+    /** Returns the mean time BATCH takes, in microseconds. */
+    private static double measure(Batch batch) {
+        for (int i = 0; i < WARMUP_ROUNDS; i += 1) {
+            sink += batch.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i += 1) {
+            sink += batch.run();
+        }
+        return (System.nanoTime() - start) / 1e3 / MEASURED_ROUNDS;
+    }
+}